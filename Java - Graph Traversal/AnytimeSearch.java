@@ -0,0 +1,199 @@
+package pathfinder;
+
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+import static pathfinder.Pathfinder.*;
+
+// Anytime (ARA*): weighted A* whose estimate starts out inflated by INITIAL_WEIGHT, so a complete path turns up
+// after few expansions, then repeated with the weight lowered by WEIGHT_STEP until it's plain A*. each pass
+// keeps the costs found so far and only expands again what got cheaper since the last one expanded it.
+// whenever a limit fires the best complete path so far comes back, and after every pass the search proves how
+// far that path can be from optimal at most, see SearchStatistics.suboptimality.
+// S is whatever identifies a node, see SearchSpace.
+final class AnytimeSearch<S> {
+    static final double INITIAL_WEIGHT = 2.5;
+    static final double WEIGHT_STEP = 0.5;
+
+    private final SearchSpace<S> space;
+    private final HashMap<S, Visit<S>> visits = new HashMap<>();
+    private PriorityQueue<Queued<S>> open = new PriorityQueue<>();
+    private Visit<S> goal;
+    private Visit<S> closest;
+    private int pass;
+    private long bytes;
+    private long queuedBytes;
+
+    AnytimeSearch(SearchSpace<S> space) {
+        this.space = space;
+    }
+
+    private static final class Visit<S> {
+        final S state;
+        final int estimate;
+        Visit<S> parent;
+        int cost = Integer.MAX_VALUE;
+        int step; // weight of the edge from parent, parent's cost may have dropped since
+        int closedIn = -1; // the pass that last expanded it
+        boolean queued;
+        boolean inconsistent; // got cheaper after this pass expanded it, so it waits for the next pass
+
+        Visit(S state, int estimate) {
+            this.state = state;
+            this.estimate = estimate;
+        }
+    }
+
+    // a visit that gets cheaper is queued again, the stale entry is skipped when it comes up.
+    // equal keys go to the costlier entry, which is usually closer to the goal
+    private record Queued<S>(Visit<S> visit, int cost, double key) implements Comparable<Queued<S>> {
+        @Override
+        public int compareTo(Queued<S> other) {
+            return key != other.key ? Double.compare(key, other.key) : Integer.compare(other.cost, cost);
+        }
+    }
+
+    PathSegment traverse(S start, SearchMonitor monitor) {
+        var root = visit(start);
+        var weight = INITIAL_WEIGHT;
+        var proven = Double.POSITIVE_INFINITY;
+
+        root.cost = 0;
+        closest = root;
+        if (space.isGoal(start)) goal = root;
+        queue(root, weight);
+
+        while (improve(weight, monitor)) {
+            // no solution, so don't move
+            if (goal == null) return new PathSegment(space.node(start), null, 0, 0);
+
+            proven = Math.min(weight, ratio());
+            if (proven <= 1) {
+                monitor.bound(1);
+                return toPathSegment(goal);
+            }
+
+            // no point searching with a weight the last path already beats
+            weight = Math.max(1, Math.min(weight - WEIGHT_STEP, proven));
+            pass++;
+            reseed(weight);
+        }
+
+        // return closest solution, complete when any pass got as far as the goal
+        if (goal == null) return toPathSegment(closest);
+
+        monitor.bound(Math.min(proven, ratio()));
+        return toPathSegment(goal);
+    }
+
+    // one weighted A* pass, over once nothing queued could lead to a cheaper goal at this weight.
+    // false when a limit fired
+    private boolean improve(double weight, SearchMonitor monitor) {
+        while (!open.isEmpty()) {
+            var top = open.peek();
+            var visit = top.visit();
+            if (!visit.queued || top.cost() != visit.cost) {
+                open.poll();
+                continue;
+            }
+
+            if (goal != null && goal.cost <= top.key()) return true;
+
+            // still queued when a limit fires, so it counts towards the bound
+            if (visit.estimate < closest.estimate) closest = visit;
+            if (!monitor.test(open.size(), visits.size(), bytes)) return false;
+
+            open.poll();
+            visit.queued = false;
+            visit.closedIn = pass;
+
+            for (int edge = 0, degree = space.degree(visit.state); edge < degree; edge++) {
+                var weightToNext = space.weight(visit.state, edge);
+                var cost = visit.cost + weightToNext;
+                var next = visit(space.neighbour(visit.state, edge));
+                if (cost >= next.cost) continue;
+
+                monitor.relax();
+                next.cost = cost;
+                next.parent = visit;
+                next.step = weightToNext;
+
+                if (space.isGoal(next.state) && (goal == null || cost <= goal.cost)) goal = next;
+
+                if (next.closedIn == pass) next.inconsistent = true;
+                else queue(next, weight);
+            }
+        }
+
+        return true;
+    }
+
+    // a lower bound on the optimal cost is the smallest cost + estimate among everything that could still get
+    // cheaper, queued or inconsistent. with nothing left the goal's path is optimal
+    private double ratio() {
+        var lowest = Long.MAX_VALUE;
+        for (var visit : visits.values())
+            if (visit.queued || visit.inconsistent)
+                lowest = Math.min(lowest, (long) visit.cost + visit.estimate);
+
+        if (lowest == Long.MAX_VALUE || lowest >= goal.cost) return 1;
+        return lowest == 0 ? Double.POSITIVE_INFINITY : (double) goal.cost / lowest;
+    }
+
+    // the next pass starts from everything queued or inconsistent, keyed by the new weight, with nothing closed
+    private void reseed(double weight) {
+        open = new PriorityQueue<>();
+        bytes -= queuedBytes;
+        queuedBytes = 0;
+
+        for (var visit : visits.values()) {
+            if (visit.queued || visit.inconsistent) {
+                visit.inconsistent = false;
+                queue(visit, weight);
+            }
+        }
+    }
+
+    private void queue(Visit<S> visit, double weight) {
+        visit.queued = true;
+        open.add(new Queued<>(visit, visit.cost, visit.cost + weight * visit.estimate));
+        bytes += MemoryLayout.ARA_QUEUED;
+        queuedBytes += MemoryLayout.ARA_QUEUED;
+    }
+
+    private Visit<S> visit(S state) {
+        var visit = visits.get(state);
+        if (visit == null) {
+            visit = new Visit<>(state, space.estimate(state));
+            visits.put(state, visit);
+            bytes += MemoryLayout.ARA_VISIT + space.stateBytes();
+        }
+
+        return visit;
+    }
+
+    // costs are added up again along the parents, which may have got cheaper after the end's cost was set
+    private PathSegment toPathSegment(Visit<S> end) {
+        var length = 0;
+        for (var visit = end; visit != null; visit = visit.parent)
+            length++;
+
+        var path = new Visit<?>[length];
+        for (var visit = end; visit != null; visit = visit.parent)
+            path[--length] = visit;
+
+        PathSegment result = null;
+        var cost = 0;
+        for (int i = 0; i < path.length; i++) {
+            cost += path[i].step;
+            result = new PathSegment(space.node(state(path[i])), result, cost, i == path.length - 1 ? end.estimate : 0);
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private S state(Visit<?> visit) {
+        return (S) visit.state;
+    }
+}
@@ -0,0 +1,327 @@
+package pathfinder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+// immutable compressed-sparse-row view of a graph: node i's edges are targets/weights[offsets[i]..offsets[i + 1]).
+// the arrays live in IntBuffers, wrapped on-heap arrays for built graphs and read-only mappings of the file for
+// mapped ones, so searches run on either without copying
+public class CompactGraph {
+    private static final int MAGIC = 0x43534731; // "CSG1"
+    private static final int HEADER = 16;        // magic, node count, edge count, reserved
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN; // native on every common platform, no swapping
+
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final IntBuffer xs;
+    private final IntBuffer ys;
+    private final Node[] nodes; // null when the graph was never backed by Node objects
+    private final Map<Node, Integer> ids;
+    private volatile int[] components; // connected component per node, labelled on first use
+
+    CompactGraph(int[] offsets, int[] targets, int[] weights, int[] xs, int[] ys, Node[] nodes) {
+        this(IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(weights), IntBuffer.wrap(xs), IntBuffer.wrap(ys), nodes);
+    }
+
+    private CompactGraph(IntBuffer offsets, IntBuffer targets, IntBuffer weights, IntBuffer xs, IntBuffer ys, Node[] nodes) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.xs = xs;
+        this.ys = ys;
+        this.nodes = nodes;
+        this.ids = new HashMap<>();
+
+        if (nodes != null)
+            for (int i = 0; i < nodes.length; i++)
+                ids.put(nodes[i], i);
+    }
+
+    // every node reachable from root, numbered in breadth-first order
+    public static CompactGraph from(Node root) {
+        var seen = new HashSet<Node>();
+        var order = new ArrayList<Node>();
+        var queue = new ArrayDeque<Node>();
+
+        seen.add(root);
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            var node = queue.poll();
+            order.add(node);
+
+            for (var adjacent : node.getAdjacent())
+                if (seen.add(adjacent.node()))
+                    queue.add(adjacent.node());
+        }
+
+        return of(order);
+    }
+
+    // edges leading outside the given nodes are dropped
+    public static CompactGraph of(Collection<Node> nodes) {
+        var array = nodes.toArray(new Node[0]);
+        var index = new HashMap<Node, Integer>();
+
+        for (int i = 0; i < array.length; i++)
+            index.put(array[i], i);
+
+        var offsets = new int[array.length + 1];
+        var xs = new int[array.length];
+        var ys = new int[array.length];
+
+        for (int i = 0; i < array.length; i++) {
+            xs[i] = array[i].getX();
+            ys[i] = array[i].getY();
+            offsets[i + 1] = offsets[i];
+
+            for (var adjacent : array[i].getAdjacent())
+                if (index.containsKey(adjacent.node()))
+                    offsets[i + 1]++;
+        }
+
+        var targets = new int[offsets[array.length]];
+        var weights = new int[offsets[array.length]];
+
+        for (int i = 0, edge = 0; i < array.length; i++) {
+            for (var adjacent : array[i].getAdjacent()) {
+                var target = index.get(adjacent.node());
+                if (target == null) continue;
+
+                targets[edge] = target;
+                weights[edge++] = adjacent.weight();
+            }
+        }
+
+        return new CompactGraph(offsets, targets, weights, xs, ys, array);
+    }
+
+    // writes the graph as a header and its five int arrays, in the order map() expects them.
+    // Node names and objects aren't part of the file, a mapped graph only knows coordinates
+    public void save(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            var buffer = ByteBuffer.allocateDirect(1 << 16).order(ORDER);
+            buffer.putInt(MAGIC).putInt(size()).putInt(edgeCount()).putInt(0);
+
+            for (var section : List.of(xs, ys, offsets, targets, weights)) {
+                for (int i = 0; i < section.limit(); i++) {
+                    if (!buffer.hasRemaining())
+                        drain(channel, buffer);
+
+                    buffer.putInt(section.get(i));
+                }
+            }
+
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        buffer.clear();
+    }
+
+    // maps a file written by save() read-only, nothing is read up front and the graph stays off-heap; the OS pages
+    // it in as searches touch it. only the header and file size are checked, the contents are trusted.
+    // the mapping outlives the channel and is released once the graph is garbage collected
+    public static CompactGraph map(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, READ)) {
+            var header = channel.size() < HEADER ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ORDER);
+            if (header == null || header.getInt(0) != MAGIC)
+                throw new Pathfinder.PathfindingException(String.format("%s is not a saved compact graph.", file));
+
+            int nodeCount = header.getInt(4), edgeCount = header.getInt(8);
+            if (nodeCount < 0 || edgeCount < 0)
+                throw new Pathfinder.PathfindingException(String.format("%s is corrupt, its header has negative counts.", file));
+
+            // a single mapping is limited to 2 GB, which is what bounds both counts. it also keeps nodeCount + 1 and
+            // every section's byte length from overflowing below
+            if (nodeCount >= Integer.MAX_VALUE / Integer.BYTES || edgeCount > Integer.MAX_VALUE / Integer.BYTES)
+                throw new Pathfinder.PathfindingException(String.format("%s has too many nodes or edges to map.", file));
+
+            var expected = HEADER + 4L * (3L * nodeCount + 1 + 2L * edgeCount);
+            if (channel.size() != expected)
+                throw new Pathfinder.PathfindingException(String.format("%s is truncated or corrupt, its header needs %d bytes but it has %d.", file, expected, channel.size()));
+
+            long xsAt = HEADER, ysAt = xsAt + 4L * nodeCount, offsetsAt = ysAt + 4L * nodeCount;
+            long targetsAt = offsetsAt + 4L * (nodeCount + 1), weightsAt = targetsAt + 4L * edgeCount;
+
+            return new CompactGraph(
+                    section(channel, offsetsAt, nodeCount + 1), section(channel, targetsAt, edgeCount),
+                    section(channel, weightsAt, edgeCount), section(channel, xsAt, nodeCount),
+                    section(channel, ysAt, nodeCount), null);
+        }
+    }
+
+    private static IntBuffer section(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).order(ORDER).asIntBuffer();
+    }
+
+    public int size() {
+        return xs.limit();
+    }
+
+    public int edgeCount() {
+        return targets.limit();
+    }
+
+    public int x(int node) {
+        return xs.get(node);
+    }
+
+    public int y(int node) {
+        return ys.get(node);
+    }
+
+    public int firstEdge(int node) {
+        return offsets.get(node);
+    }
+
+    public int lastEdge(int node) {
+        return offsets.get(node + 1);
+    }
+
+    public int target(int edge) {
+        return targets.get(edge);
+    }
+
+    public int weight(int edge) {
+        return weights.get(edge);
+    }
+
+    public boolean matches(int node, int other) {
+        return xs.get(node) == xs.get(other) && ys.get(node) == ys.get(other);
+    }
+
+    // the graph never changes, so unlike Node.mayReach this is exact. the first call labels every node's
+    // component in one union-find pass over the edges, later ones are two array reads
+    public boolean mayReach(int node, int other) {
+        var components = this.components;
+        if (components == null)
+            this.components = components = labelComponents();
+
+        return components[node] == components[other];
+    }
+
+    private int[] labelComponents() {
+        var parents = new int[size()];
+        for (int i = 0; i < parents.length; i++)
+            parents[i] = i;
+
+        for (int node = 0; node < parents.length; node++) {
+            for (int edge = firstEdge(node), last = lastEdge(node); edge < last; edge++) {
+                int a = root(parents, node), b = root(parents, target(edge));
+                if (a != b) parents[Math.max(a, b)] = Math.min(a, b);
+            }
+        }
+
+        for (int node = 0; node < parents.length; node++)
+            parents[node] = root(parents, node);
+
+        return parents;
+    }
+
+    private static int root(int[] parents, int node) {
+        while (parents[node] != node)
+            node = parents[node] = parents[parents[node]];
+
+        return node;
+    }
+
+    // the Node a graph was built from, or a fresh coordinate-only Node for graphs loaded without one
+    public Node node(int node) {
+        return nodes != null ? nodes[node] : new Node(xs.get(node), ys.get(node));
+    }
+
+    public int indexOf(Node node) {
+        var id = find(node);
+        if (id < 0)
+            throw new Pathfinder.PathfindingException(String.format("%s is not part of this graph.", node));
+
+        return id;
+    }
+
+    // -1 for a node the graph wasn't built from
+    int find(Node node) {
+        var id = ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    // assembles a graph from raw coordinates and edges without ever creating Node objects
+    public static class Builder {
+        private int[] xs = new int[16];
+        private int[] ys = new int[16];
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] weight = new int[16];
+        private int nodeCount;
+        private int edgeCount;
+
+        public int addNode(int x, int y) {
+            if (nodeCount == xs.length) {
+                xs = Arrays.copyOf(xs, nodeCount * 2);
+                ys = Arrays.copyOf(ys, nodeCount * 2);
+            }
+
+            xs[nodeCount] = x;
+            ys[nodeCount] = y;
+            return nodeCount++;
+        }
+
+        // symmetric, like Node.addAdjacent
+        public Builder addEdge(int a, int b, int w) {
+            if (a < 0 || a >= nodeCount || b < 0 || b >= nodeCount)
+                throw new Pathfinder.PathfindingException(String.format("Edge (%d, %d) refers to an unknown node.", a, b));
+
+            addArc(a, b, w);
+            addArc(b, a, w);
+            return this;
+        }
+
+        private void addArc(int a, int b, int w) {
+            if (edgeCount == from.length) {
+                from = Arrays.copyOf(from, edgeCount * 2);
+                to = Arrays.copyOf(to, edgeCount * 2);
+                weight = Arrays.copyOf(weight, edgeCount * 2);
+            }
+
+            from[edgeCount] = a;
+            to[edgeCount] = b;
+            weight[edgeCount++] = w;
+        }
+
+        public CompactGraph build() {
+            var offsets = new int[nodeCount + 1];
+            var targets = new int[edgeCount];
+            var weights = new int[edgeCount];
+
+            for (int i = 0; i < edgeCount; i++)
+                offsets[from[i] + 1]++;
+
+            for (int i = 0; i < nodeCount; i++)
+                offsets[i + 1] += offsets[i];
+
+            // stable counting sort, so each node keeps its edges in insertion order
+            var cursor = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                var slot = cursor[from[i]]++;
+                targets[slot] = to[i];
+                weights[slot] = weight[i];
+            }
+
+            return new CompactGraph(offsets, targets, weights,
+                    Arrays.copyOf(xs, nodeCount), Arrays.copyOf(ys, nodeCount), null);
+        }
+    }
+}
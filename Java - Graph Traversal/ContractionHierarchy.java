@@ -0,0 +1,601 @@
+package pathfinder;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import static pathfinder.Pathfinder.*;
+
+// contracts every node of a static graph once, in order of importance, adding shortcut edges that keep
+// shortest distances intact; a query then only ever climbs towards more important nodes from both ends
+public class ContractionHierarchy {
+    private static final int MAGIC = 0x43484732; // "CHG2"
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int WITNESS_SETTLE_LIMIT = 100;
+    private static final int PRIORITY_SETTLE_LIMIT = 50;
+
+    private final CompactGraph graph;
+    private final int[] rank;
+    // upward edges only: node i's edges lead to higher ranked nodes, middle is -1 for original edges
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] middles;
+    private final ThreadLocal<Workspace> workspaces;
+
+    private ContractionHierarchy(CompactGraph graph, int[] rank, int[] offsets, int[] targets, int[] weights, int[] middles) {
+        this.graph = graph;
+        this.rank = rank;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.middles = middles;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(rank.length));
+    }
+
+    public static ContractionHierarchy build(CompactGraph graph) {
+        return new Contractor(graph).contract();
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int distance(Node start, Node goal) {
+        return distance(graph.indexOf(start), graph.indexOf(goal));
+    }
+
+    // -1 when goal can't be reached, the path itself is never unpacked
+    public int distance(int start, int goal) {
+        var workspace = workspaces.get();
+        var meeting = search(workspace, start, goal);
+        var result = meeting < 0 ? -1 : workspace.forward[meeting] + workspace.backward[meeting];
+
+        workspace.reset();
+        return result;
+    }
+
+    public PathSegment traverse(Node start, Node goal) {
+        return traverse(graph.indexOf(start), graph.indexOf(goal));
+    }
+
+    public PathSegment traverse(int start, int goal) {
+        var workspace = workspaces.get();
+        var meeting = search(workspace, start, goal);
+
+        try {
+            // no solution, so don't move
+            if (meeting < 0)
+                return new PathSegment(graph.node(start), null, 0, 0);
+
+            var hops = new IntList();
+            for (var node = meeting; node != start; node = workspace.forwardParent[node])
+                hops.add(node);
+            hops.add(start);
+            hops.reverse();
+            for (var node = meeting; node != goal; ) {
+                node = workspace.backwardParent[node];
+                hops.add(node);
+            }
+
+            var path = new IntList();
+            var costs = new IntList();
+            path.add(start);
+            costs.add(0);
+
+            for (int i = 1; i < hops.size(); i++)
+                unpack(hops.get(i - 1), hops.get(i), path, costs);
+
+            PathSegment result = null;
+            for (int i = 0; i < path.size(); i++)
+                result = new PathSegment(graph.node(path.get(i)), result, costs.get(i), 0);
+
+            return result;
+        } finally {
+            workspace.reset();
+        }
+    }
+
+    // bidirectional upward Dijkstra, returns the meeting node or -1
+    private int search(Workspace workspace, int start, int goal) {
+        var forward = workspace.forward;
+        var backward = workspace.backward;
+        var forwardQueue = workspace.forwardQueue;
+        var backwardQueue = workspace.backwardQueue;
+
+        workspace.touch(start);
+        workspace.touch(goal);
+        forward[start] = 0;
+        backward[goal] = 0;
+        forwardQueue.push(0, start);
+        backwardQueue.push(0, goal);
+
+        int best = INFINITY, meeting = -1;
+
+        while (forwardQueue.size() > 0 || backwardQueue.size() > 0) {
+            var forwardMin = forwardQueue.size() > 0 ? forwardQueue.topKey() : INFINITY;
+            var backwardMin = backwardQueue.size() > 0 ? backwardQueue.topKey() : INFINITY;
+            if (Math.min(forwardMin, backwardMin) >= best) break;
+
+            var isForward = forwardMin <= backwardMin;
+            var queue = isForward ? forwardQueue : backwardQueue;
+            var distances = isForward ? forward : backward;
+            var opposite = isForward ? backward : forward;
+            var parents = isForward ? workspace.forwardParent : workspace.backwardParent;
+
+            var cost = queue.topKey();
+            var node = queue.pop();
+            if (cost > distances[node]) continue;
+
+            if (opposite[node] != INFINITY && cost + opposite[node] < best) {
+                best = cost + opposite[node];
+                meeting = node;
+            }
+
+            if (stalled(node, cost, distances)) continue;
+
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                var next = targets[edge];
+                var nextCost = cost + weights[edge];
+
+                if (nextCost < distances[next]) {
+                    workspace.touch(next);
+                    distances[next] = nextCost;
+                    parents[next] = node;
+                    queue.push(nextCost, next);
+                }
+            }
+        }
+
+        return meeting;
+    }
+
+    // stall-on-demand: a node reached more cheaply from a higher ranked neighbour can't be on a shortest up-down path
+    private boolean stalled(int node, int cost, int[] distances) {
+        for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+            var reached = distances[targets[edge]];
+            if (reached != INFINITY && reached + weights[edge] < cost)
+                return true;
+        }
+
+        return false;
+    }
+
+    // replaces the (possibly shortcut) edge a-b by the original edges it stands for
+    private void unpack(int a, int b, IntList path, IntList costs) {
+        var stack = new IntList();
+        stack.add(a);
+        stack.add(b);
+
+        while (stack.size() > 0) {
+            var to = stack.pop();
+            var from = stack.pop();
+            var edge = findEdge(from, to);
+
+            if (middles[edge] < 0) {
+                path.add(to);
+                costs.add(costs.get(costs.size() - 1) + weights[edge]);
+            } else {
+                // second half is pushed first so the first half gets unpacked first
+                stack.add(middles[edge]);
+                stack.add(to);
+                stack.add(from);
+                stack.add(middles[edge]);
+            }
+        }
+    }
+
+    private int findEdge(int a, int b) {
+        var lower = rank[a] < rank[b] ? a : b;
+        var higher = lower == a ? b : a;
+
+        for (int edge = offsets[lower]; edge < offsets[lower + 1]; edge++)
+            if (targets[edge] == higher)
+                return edge;
+
+        throw new PathfindingException(String.format("Contraction hierarchy has no edge between %d and %d.", a, b));
+    }
+
+    public void save(OutputStream stream) throws IOException {
+        var out = new DataOutputStream(new BufferedOutputStream(stream));
+
+        out.writeInt(MAGIC);
+        out.writeInt(rank.length);
+        out.writeInt(targets.length);
+        out.writeLong(checksum(graph));
+        writeInts(out, rank);
+        writeInts(out, offsets);
+        writeInts(out, targets);
+        writeInts(out, weights);
+        writeInts(out, middles);
+        out.flush();
+    }
+
+    // graph must be the one the hierarchy was built from
+    public static ContractionHierarchy load(InputStream stream, CompactGraph graph) throws IOException {
+        var in = new DataInputStream(new BufferedInputStream(stream));
+
+        if (in.readInt() != MAGIC)
+            throw new PathfindingException("Not a saved contraction hierarchy.");
+
+        int nodeCount = in.readInt(), edgeCount = in.readInt();
+        if (nodeCount != graph.size())
+            throw new PathfindingException(String.format("Contraction hierarchy has %d nodes but the graph has %d.", nodeCount, graph.size()));
+        if (in.readLong() != checksum(graph))
+            throw new PathfindingException("Contraction hierarchy was built from a different graph.");
+
+        return new ContractionHierarchy(graph,
+                readInts(in, nodeCount), readInts(in, nodeCount + 1),
+                readInts(in, edgeCount), readInts(in, edgeCount), readInts(in, edgeCount));
+    }
+
+    // FNV-1a over every edge, so a hierarchy saved from another graph of the same size isn't taken for this one's
+    private static long checksum(CompactGraph graph) {
+        var hash = 0xcbf29ce484222325L;
+        for (int node = 0; node < graph.size(); node++) {
+            hash = (hash ^ graph.lastEdge(node)) * 0x100000001b3L;
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                hash = (hash ^ graph.target(edge)) * 0x100000001b3L;
+                hash = (hash ^ graph.weight(edge)) * 0x100000001b3L;
+            }
+        }
+
+        return hash;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (var value : values)
+            out.writeInt(value);
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        var values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = in.readInt();
+
+        return values;
+    }
+
+    // contraction-time state: a mutable undirected edge list per remaining node, shortcuts included
+    private static class Contractor {
+        private final CompactGraph graph;
+        private final int[][] neighbours;
+        private final int[][] edgeWeights;
+        private final int[][] edgeMiddles;
+        private final int[] degree;
+        private final int[] deletedNeighbours;
+        private final int[] level;
+        private final Workspace witness;
+
+        Contractor(CompactGraph graph) {
+            var n = graph.size();
+            this.graph = graph;
+            this.neighbours = new int[n][];
+            this.edgeWeights = new int[n][];
+            this.edgeMiddles = new int[n][];
+            this.degree = new int[n];
+            this.deletedNeighbours = new int[n];
+            this.level = new int[n];
+            this.witness = new Workspace(n);
+
+            for (int node = 0; node < n; node++) {
+                var capacity = Math.max(4, graph.lastEdge(node) - graph.firstEdge(node));
+                neighbours[node] = new int[capacity];
+                edgeWeights[node] = new int[capacity];
+                edgeMiddles[node] = new int[capacity];
+            }
+
+            for (int node = 0; node < n; node++)
+                for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++)
+                    if (graph.target(edge) != node)
+                        addEdge(node, graph.target(edge), graph.weight(edge), -1);
+        }
+
+        ContractionHierarchy contract() {
+            var n = graph.size();
+            var rank = new int[n];
+            var upward = new int[n][];
+            var queue = new PriorityQueue<long[]>((a, b) -> Long.compare(a[0], b[0]));
+
+            for (int node = 0; node < n; node++)
+                queue.add(new long[] { priority(node), node });
+
+            // lazy updates: a node is only contracted if its refreshed priority is still the lowest
+            for (int order = 0; !queue.isEmpty(); ) {
+                var node = (int) queue.poll()[1];
+                var current = priority(node);
+
+                if (!queue.isEmpty() && current > queue.peek()[0]) {
+                    queue.add(new long[] { current, node });
+                    continue;
+                }
+
+                for (var shortcut : findShortcuts(node, WITNESS_SETTLE_LIMIT))
+                    addEdge(shortcut[0], shortcut[1], shortcut[2], node);
+
+                rank[node] = order++;
+                upward[node] = detach(node);
+            }
+
+            return toHierarchy(rank, upward);
+        }
+
+        private long priority(int node) {
+            return 2L * (findShortcuts(node, PRIORITY_SETTLE_LIMIT).size() - degree[node]) + deletedNeighbours[node] + level[node];
+        }
+
+        // pairs of neighbours whose only shortest connection runs through node
+        private ArrayList<int[]> findShortcuts(int node, int settleLimit) {
+            var shortcuts = new ArrayList<int[]>();
+
+            var maxOut = 0;
+            for (int i = 0; i < degree[node]; i++)
+                maxOut = Math.max(maxOut, edgeWeights[node][i]);
+
+            for (int i = 0; i < degree[node]; i++) {
+                var from = neighbours[node][i];
+                var fromWeight = edgeWeights[node][i];
+
+                witnessSearch(from, node, fromWeight + maxOut, settleLimit);
+
+                for (int j = i + 1; j < degree[node]; j++) {
+                    var to = neighbours[node][j];
+                    var through = fromWeight + edgeWeights[node][j];
+
+                    if (witness.forward[to] > through)
+                        shortcuts.add(new int[] { from, to, through });
+                }
+
+                witness.reset();
+            }
+
+            return shortcuts;
+        }
+
+        // bounded Dijkstra over the remaining graph that avoids the node being contracted
+        private void witnessSearch(int start, int avoid, int bound, int settleLimit) {
+            var distances = witness.forward;
+            var queue = witness.forwardQueue;
+
+            witness.touch(start);
+            distances[start] = 0;
+            queue.push(0, start);
+
+            for (int settled = 0; queue.size() > 0 && settled < settleLimit; ) {
+                var cost = queue.topKey();
+                var node = queue.pop();
+                if (cost > distances[node]) continue;
+                if (cost > bound) break;
+                settled++;
+
+                for (int i = 0; i < degree[node]; i++) {
+                    var next = neighbours[node][i];
+                    if (next == avoid) continue;
+
+                    var nextCost = cost + edgeWeights[node][i];
+                    if (nextCost < distances[next]) {
+                        witness.touch(next);
+                        distances[next] = nextCost;
+                        queue.push(nextCost, next);
+                    }
+                }
+            }
+        }
+
+        // removes a contracted node from the remaining graph, its edges become its upward edges
+        private int[] detach(int node) {
+            var edges = new int[degree[node] * 3];
+
+            for (int i = 0; i < degree[node]; i++) {
+                var other = neighbours[node][i];
+                edges[3 * i] = other;
+                edges[3 * i + 1] = edgeWeights[node][i];
+                edges[3 * i + 2] = edgeMiddles[node][i];
+
+                for (int j = 0; j < degree[other]; j++) {
+                    if (neighbours[other][j] != node) continue;
+
+                    var lastSlot = --degree[other];
+                    setEdge(other, j, neighbours[other][lastSlot], edgeWeights[other][lastSlot], edgeMiddles[other][lastSlot]);
+                    break;
+                }
+
+                deletedNeighbours[other]++;
+                level[other] = Math.max(level[other], level[node] + 1);
+            }
+
+            degree[node] = 0;
+            return edges;
+        }
+
+        // keeps a single, cheapest edge per pair of nodes
+        private void addEdge(int a, int b, int weight, int middle) {
+            for (int i = 0; i < degree[a]; i++) {
+                if (neighbours[a][i] != b) continue;
+                if (weight < edgeWeights[a][i]) {
+                    setEdge(a, i, b, weight, middle);
+                    for (int j = 0; j < degree[b]; j++)
+                        if (neighbours[b][j] == a)
+                            setEdge(b, j, a, weight, middle);
+                }
+                return;
+            }
+
+            appendEdge(a, b, weight, middle);
+            appendEdge(b, a, weight, middle);
+        }
+
+        private void appendEdge(int a, int b, int weight, int middle) {
+            if (degree[a] == neighbours[a].length) {
+                neighbours[a] = Arrays.copyOf(neighbours[a], degree[a] * 2);
+                edgeWeights[a] = Arrays.copyOf(edgeWeights[a], degree[a] * 2);
+                edgeMiddles[a] = Arrays.copyOf(edgeMiddles[a], degree[a] * 2);
+            }
+
+            setEdge(a, degree[a]++, b, weight, middle);
+        }
+
+        private void setEdge(int a, int slot, int b, int weight, int middle) {
+            neighbours[a][slot] = b;
+            edgeWeights[a][slot] = weight;
+            edgeMiddles[a][slot] = middle;
+        }
+
+        private ContractionHierarchy toHierarchy(int[] rank, int[][] upward) {
+            var n = graph.size();
+            var offsets = new int[n + 1];
+
+            for (int node = 0; node < n; node++)
+                offsets[node + 1] = offsets[node] + upward[node].length / 3;
+
+            var targets = new int[offsets[n]];
+            var weights = new int[offsets[n]];
+            var middles = new int[offsets[n]];
+
+            for (int node = 0; node < n; node++) {
+                for (int i = 0, edge = offsets[node]; i < upward[node].length; i += 3, edge++) {
+                    targets[edge] = upward[node][i];
+                    weights[edge] = upward[node][i + 1];
+                    middles[edge] = upward[node][i + 2];
+                }
+            }
+
+            return new ContractionHierarchy(graph, rank, offsets, targets, weights, middles);
+        }
+    }
+
+    // per-thread search arrays, reset by only clearing the entries a search touched
+    private static class Workspace {
+        final int[] forward;
+        final int[] backward;
+        final int[] forwardParent;
+        final int[] backwardParent;
+        final MinQueue forwardQueue = new MinQueue();
+        final MinQueue backwardQueue = new MinQueue();
+        final IntList touched = new IntList();
+        final boolean[] isTouched;
+
+        Workspace(int size) {
+            forward = new int[size];
+            backward = new int[size];
+            forwardParent = new int[size];
+            backwardParent = new int[size];
+            isTouched = new boolean[size];
+            Arrays.fill(forward, INFINITY);
+            Arrays.fill(backward, INFINITY);
+        }
+
+        void touch(int node) {
+            if (isTouched[node]) return;
+
+            isTouched[node] = true;
+            touched.add(node);
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size(); i++) {
+                var node = touched.get(i);
+                forward[node] = INFINITY;
+                backward[node] = INFINITY;
+                isTouched[node] = false;
+            }
+
+            touched.clear();
+            forwardQueue.clear();
+            backwardQueue.clear();
+        }
+    }
+
+    // binary min-heap of (key, node) pairs packed into longs, stale entries are skipped by the caller
+    private static class MinQueue {
+        private long[] heap = new long[64];
+        private int size;
+
+        void push(int key, int node) {
+            if (size == heap.length)
+                heap = Arrays.copyOf(heap, size * 2);
+
+            var entry = ((long) key << 32) | node;
+            var position = size++;
+
+            while (position > 0) {
+                var parent = (position - 1) >>> 1;
+                if (heap[parent] <= entry) break;
+
+                heap[position] = heap[parent];
+                position = parent;
+            }
+
+            heap[position] = entry;
+        }
+
+        int topKey() {
+            return (int) (heap[0] >>> 32);
+        }
+
+        int pop() {
+            var top = heap[0];
+            var last = heap[--size];
+            var position = 0;
+
+            while (true) {
+                var child = 2 * position + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (last <= heap[child]) break;
+
+                heap[position] = heap[child];
+                position = child;
+            }
+
+            heap[position] = last;
+            return (int) top;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                var swap = values[i];
+                values[i] = values[j];
+                values[j] = swap;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package pathfinder;
+
+import java.util.List;
+
+import static pathfinder.Pathfinder.*;
+
+// shortest path costs from every source to every target, -1 where a target can't be reached
+public class DistanceMatrix {
+    private final List<Node> sources;
+    private final List<Node> targets;
+    private final int[][] costs;
+    private final PathSegment[][] paths; // null unless paths were requested
+
+    DistanceMatrix(List<Node> sources, List<Node> targets, int[][] costs, PathSegment[][] paths) {
+        this.sources = sources;
+        this.targets = targets;
+        this.costs = costs;
+        this.paths = paths;
+    }
+
+    public List<Node> getSources() {
+        return sources;
+    }
+
+    public List<Node> getTargets() {
+        return targets;
+    }
+
+    public int cost(int source, int target) {
+        return costs[source][target];
+    }
+
+    public boolean hasPaths() {
+        return paths != null;
+    }
+
+    public PathSegment path(int source, int target) {
+        if (paths == null)
+            throw new PathfindingException("Distance matrix was computed without paths.");
+
+        return paths[source][target];
+    }
+}
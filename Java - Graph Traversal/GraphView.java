@@ -0,0 +1,63 @@
+package pathfinder;
+
+// the graph as searches over node ids see it, so they run on a CompactGraph and on a VersionedGraph snapshot alike
+// without copying either. a node's edges are numbered from 0 to its degree
+abstract class GraphView {
+    abstract int size();
+
+    abstract int degree(int node);
+
+    abstract int target(int node, int index);
+
+    abstract int weight(int node, int index);
+
+    abstract int x(int node);
+
+    abstract int y(int node);
+
+    abstract Node node(int node);
+
+    abstract int estimate(Heuristic heuristic, int current, int goal);
+
+    // true only when goal can't be reached from start, cheap enough to ask before every search
+    abstract boolean unreachable(int start, int goal);
+
+    boolean matches(int node, int other) {
+        return x(node) == x(other) && y(node) == y(other);
+    }
+
+    static GraphView of(CompactGraph graph) {
+        return new GraphView() {
+            int size() { return graph.size(); }
+            int degree(int node) { return graph.lastEdge(node) - graph.firstEdge(node); }
+            int target(int node, int index) { return graph.target(graph.firstEdge(node) + index); }
+            int weight(int node, int index) { return graph.weight(graph.firstEdge(node) + index); }
+            int x(int node) { return graph.x(node); }
+            int y(int node) { return graph.y(node); }
+            Node node(int node) { return graph.node(node); }
+            int estimate(Heuristic heuristic, int current, int goal) { return heuristic.estimate(graph, current, goal); }
+
+            // a goal without connections may just be a position to match, like in Pathfinder's Node searches
+            boolean unreachable(int start, int goal) {
+                return graph.firstEdge(goal) != graph.lastEdge(goal) && !graph.matches(start, goal) && !graph.mayReach(start, goal);
+            }
+        };
+    }
+
+    // nothing is built per version, a search reads the snapshot's pages directly
+    static GraphView of(VersionedGraph.Snapshot graph) {
+        return new GraphView() {
+            int size() { return graph.size(); }
+            int degree(int node) { return graph.degree(node); }
+            int target(int node, int index) { return graph.target(node, index); }
+            int weight(int node, int index) { return graph.weight(node, index); }
+            int x(int node) { return graph.x(node); }
+            int y(int node) { return graph.y(node); }
+            Node node(int node) { return new Node(graph.x(node), graph.y(node)); }
+            int estimate(Heuristic heuristic, int current, int goal) { return heuristic.estimate(graph, current, goal); }
+
+            // labelling components would be a pass over the whole version, so the search finds out instead
+            boolean unreachable(int start, int goal) { return false; }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package pathfinder;
+
+// lower bound on the remaining cost from current to goal, used by the Optimal and Greedy strategies
+public interface Heuristic {
+    int estimate(Node current, Node goal);
+
+    default int estimate(CompactGraph graph, int current, int goal) {
+        return estimate(graph.node(current), graph.node(goal));
+    }
+
+    // a snapshot has no Nodes to hand to the method above, and making two on every call would allocate on every
+    // expansion, so unless this is overridden snapshots get 0: still a lower bound, the search just runs as Uniform
+    default int estimate(VersionedGraph.Snapshot graph, int current, int goal) {
+        return 0;
+    }
+
+    Heuristic MANHATTAN = new Heuristic() {
+        @Override
+        public int estimate(Node current, Node goal) {
+            return Math.abs(current.getX() - goal.getX()) + Math.abs(current.getY() - goal.getY());
+        }
+
+        @Override
+        public int estimate(CompactGraph graph, int current, int goal) {
+            return Math.abs(graph.x(current) - graph.x(goal)) + Math.abs(graph.y(current) - graph.y(goal));
+        }
+
+        @Override
+        public int estimate(VersionedGraph.Snapshot graph, int current, int goal) {
+            return Math.abs(graph.x(current) - graph.x(goal)) + Math.abs(graph.y(current) - graph.y(goal));
+        }
+    };
+}
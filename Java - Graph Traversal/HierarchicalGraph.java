@@ -0,0 +1,263 @@
+package pathfinder;
+
+import java.util.*;
+
+import static pathfinder.Pathfinder.*;
+import static pathfinder.QueryableCollection.*;
+
+// HPA*: nodes are grouped into clusterSize x clusterSize squares by coordinate, and every run of edges crossing
+// between two clusters gets one entrance (two, at its ends, when the run is long). Costs between the entrances of a
+// cluster are precomputed with a search that stays inside the cluster, which leaves a small abstract graph.
+// a query connects start and goal to their own cluster's entrances, runs A* on the abstract graph and stitches
+// the stored cluster paths back together. Paths are usually within a few percent of optimal, not exactly optimal
+public class HierarchicalGraph {
+    private static final int LONG_ENTRANCE = 6; // runs at least this long get an entrance at each end
+
+    private final int clusterSize;
+    private final long version;
+    private final HashMap<Node, List<AbstractEdge>> edges = new HashMap<>();
+    private final HashMap<Long, Set<Node>> entrances = new HashMap<>();
+
+    // path runs from the edge's source (cost 0) to target (cost = the edge's cost)
+    private static record AbstractEdge(Node target, int cost, PathSegment path) { }
+
+    private static record Crossing(Node from, Node to, int weight) { }
+
+    private HierarchicalGraph(int clusterSize) {
+        this.clusterSize = clusterSize;
+        this.version = Node.getGraphVersion();
+    }
+
+    // every node reachable from root; rebuild after the graph changes
+    public static HierarchicalGraph build(Node root, int clusterSize) {
+        if (clusterSize <= 0)
+            throw new PathfindingException("Cluster size must be greater than 0");
+
+        var hierarchy = new HierarchicalGraph(clusterSize);
+        var crossings = new HashMap<List<Long>, List<Crossing>>();
+        var seen = new HashSet<Node>();
+        var queue = new ArrayDeque<Node>();
+
+        seen.add(root);
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            var node = queue.poll();
+            var cluster = hierarchy.cluster(node);
+
+            for (var adjacent : node.getAdjacent()) {
+                var next = adjacent.node();
+                if (seen.add(next)) queue.add(next);
+
+                // each undirected crossing once, from the side with the lower cluster id
+                var other = hierarchy.cluster(next);
+                if (cluster < other)
+                    crossings.computeIfAbsent(List.of(cluster, other), pair -> new ArrayList<>())
+                            .add(new Crossing(node, next, adjacent.weight()));
+            }
+        }
+
+        for (var border : crossings.values())
+            hierarchy.addEntrances(border);
+
+        for (var cluster : hierarchy.entrances.entrySet())
+            hierarchy.connectEntrances(cluster.getKey(), cluster.getValue());
+
+        return hierarchy;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    public int getEntranceCount() {
+        return edges.size();
+    }
+
+    public PathSegment traverse(Node start, Node goal) {
+        return traverse(start, goal, Heuristic.MANHATTAN);
+    }
+
+    public PathSegment traverse(Node start, Node goal, Heuristic heuristic) {
+        if (version != Node.getGraphVersion())
+            throw new PathfindingException(start, goal, "Graph changed since the hierarchy was built");
+
+        if (start == goal)
+            return new PathSegment(start, null, 0, 0);
+
+        var startCluster = cluster(start);
+        var goalCluster = cluster(goal);
+        var fromStart = searchCluster(start, startCluster, targets(startCluster, startCluster == goalCluster ? goal : null));
+        var toGoal = searchCluster(goal, goalCluster, targets(goalCluster, null));
+
+        // the goal hangs off its cluster's entrances for this query only, so the shared abstract graph never changes
+        var intoGoal = new HashMap<Node, AbstractEdge>();
+        for (var entrance : toGoal.values())
+            intoGoal.put(entrance.latest(), new AbstractEdge(goal, entrance.cost(), reversed(entrance)));
+
+        var result = searchAbstract(start, goal, fromStart, intoGoal, heuristic);
+
+        // entrances are chosen per border run, so a wall inside a cluster can cut one off; check the full graph then
+        return result != null ? result : getInstance().traverse(start, goal, SearchOptions.of(PathStrategy.Optimal).withHeuristic(heuristic));
+    }
+
+    private PathSegment searchAbstract(Node start, Node goal, Map<Node, PathSegment> fromStart, Map<Node, AbstractEdge> intoGoal, Heuristic heuristic) {
+        var open = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+        var closed = new HashSet<Node>();
+        var best = new HashMap<Node, Integer>();
+        var via = new HashMap<Node, AbstractEdge>(); // the abstract edge each node was best reached through
+
+        open.add(new PathSegment(start, null, 0, heuristic.estimate(start, goal)));
+        best.put(start, 0);
+
+        while (open.size() > 0) {
+            var segment = open.remove();
+            var node = segment.latest();
+
+            if (node == goal)
+                return refine(segment, via);
+
+            closed.add(node);
+
+            var outgoing = new ArrayList<>(edges.getOrDefault(node, List.of()));
+            if (node == start)
+                for (var reached : fromStart.values())
+                    outgoing.add(new AbstractEdge(reached.latest(), reached.cost(), reached));
+            if (intoGoal.containsKey(node))
+                outgoing.add(intoGoal.get(node));
+
+            for (var edge : outgoing) {
+                var next = edge.target();
+                var cost = segment.cost() + edge.cost();
+                if (closed.contains(next) || cost >= best.getOrDefault(next, Integer.MAX_VALUE)) continue;
+
+                best.put(next, cost);
+                via.put(next, edge);
+                open.add(new PathSegment(next, segment, cost, heuristic.estimate(next, goal)));
+            }
+        }
+
+        return null;
+    }
+
+    // replaces every abstract edge with the concrete path it stands for
+    private static PathSegment refine(PathSegment abstractEnd, Map<Node, AbstractEdge> via) {
+        var hops = new ArrayList<AbstractEdge>();
+        for (var segment = abstractEnd; segment.previous() != null; segment = segment.previous())
+            hops.add(via.get(segment.latest()));
+        Collections.reverse(hops);
+
+        var start = abstractEnd;
+        while (start.previous() != null) start = start.previous();
+
+        var result = new PathSegment(start.latest(), null, 0, 0);
+        for (var hop : hops) {
+            var steps = forward(hop.path());
+            for (int i = 1; i < steps.size(); i++) {
+                var step = steps.get(i);
+                result = new PathSegment(step.latest(), result, result.cost() + step.cost() - steps.get(i - 1).cost(), 0);
+            }
+        }
+
+        return result;
+    }
+
+    private void addEntrances(List<Crossing> border) {
+        border.sort(Comparator.comparingInt((Crossing crossing) -> crossing.from().getX()).thenComparingInt(crossing -> crossing.from().getY()));
+
+        // a run is a stretch of crossings whose source cells sit next to each other along the border
+        for (int first = 0, last; first < border.size(); first = last + 1) {
+            last = first;
+            while (last + 1 < border.size() && adjacentCells(border.get(last).from(), border.get(last + 1).from()))
+                last++;
+
+            if (last - first + 1 >= LONG_ENTRANCE) {
+                addEntrance(border.get(first));
+                addEntrance(border.get(last));
+            } else {
+                addEntrance(border.get((first + last) >>> 1));
+            }
+        }
+    }
+
+    private void addEntrance(Crossing crossing) {
+        Node from = crossing.from(), to = crossing.to();
+        addEdge(from, new AbstractEdge(to, crossing.weight(), new PathSegment(to, new PathSegment(from, null, 0, 0), crossing.weight(), 0)));
+        addEdge(to, new AbstractEdge(from, crossing.weight(), new PathSegment(from, new PathSegment(to, null, 0, 0), crossing.weight(), 0)));
+        entrances.computeIfAbsent(cluster(from), cluster -> new LinkedHashSet<>()).add(from);
+        entrances.computeIfAbsent(cluster(to), cluster -> new LinkedHashSet<>()).add(to);
+    }
+
+    private void connectEntrances(long cluster, Set<Node> clusterEntrances) {
+        for (var entrance : clusterEntrances)
+            for (var reached : searchCluster(entrance, cluster, clusterEntrances).values())
+                if (reached.latest() != entrance)
+                    addEdge(entrance, new AbstractEdge(reached.latest(), reached.cost(), reached));
+    }
+
+    private void addEdge(Node from, AbstractEdge edge) {
+        edges.computeIfAbsent(from, node -> new ArrayList<>()).add(edge);
+    }
+
+    private Set<Node> targets(long cluster, Node extra) {
+        var targets = new HashSet<>(entrances.getOrDefault(cluster, Set.of()));
+        if (extra != null) targets.add(extra);
+        return targets;
+    }
+
+    // Dijkstra from source that never leaves its cluster, until every target is settled
+    private Map<Node, PathSegment> searchCluster(Node source, long cluster, Set<Node> targets) {
+        var open = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+        var closed = new HashSet<Node>();
+        var reached = new HashMap<Node, PathSegment>();
+        var remaining = targets.size();
+
+        open.add(new PathSegment(source, null, 0, 0));
+
+        while (open.size() > 0 && remaining > 0) {
+            var segment = open.remove();
+            var node = segment.latest();
+            closed.add(node);
+
+            if (targets.contains(node)) {
+                reached.put(node, segment);
+                remaining--;
+            }
+
+            for (var adjacent : node.getAdjacent()) {
+                var next = adjacent.node();
+                if (!closed.contains(next) && cluster(next) == cluster)
+                    open.add(new PathSegment(next, segment, segment.cost() + adjacent.weight(), 0));
+            }
+        }
+
+        return reached;
+    }
+
+    private long cluster(Node node) {
+        return ((long) Math.floorDiv(node.getX(), clusterSize) << 32) | (Math.floorDiv(node.getY(), clusterSize) & 0xffffffffL);
+    }
+
+    private static boolean adjacentCells(Node a, Node b) {
+        return Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY()) <= 1;
+    }
+
+    private static List<PathSegment> forward(PathSegment end) {
+        var steps = new ArrayList<PathSegment>();
+        for (var segment = end; segment != null; segment = segment.previous())
+            steps.add(segment);
+        Collections.reverse(steps);
+        return steps;
+    }
+
+    // the same path walked from its last node back to its first, with costs measured from the other end
+    private static PathSegment reversed(PathSegment end) {
+        var total = end.cost();
+        PathSegment result = null;
+
+        for (var segment = end; segment != null; segment = segment.previous())
+            result = new PathSegment(segment.latest(), result, total - segment.cost(), 0);
+
+        return result;
+    }
+}
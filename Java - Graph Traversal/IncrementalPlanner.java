@@ -0,0 +1,188 @@
+package pathfinder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+import static pathfinder.Node.*;
+import static pathfinder.Pathfinder.*;
+
+// D* Lite session for one goal: searches backwards from the goal once, then keeps its g/rhs values between calls.
+// after the agent moves or an edge changes, plan() only re-expands the vertices whose distance to the goal
+// actually changed, instead of searching the whole graph again. The heuristic has to be consistent (Manhattan
+// is, as long as no edge is cheaper than the distance it spans). Edges are symmetric, like Node.addAdjacent
+public class IncrementalPlanner {
+    private static final long INFINITE = Long.MAX_VALUE / 4;
+
+    private final Node goal;
+    private final Heuristic heuristic;
+    private final HashMap<Node, Long> g = new HashMap<>();
+    private final HashMap<Node, Long> rhs = new HashMap<>();
+    private final HashMap<Node, Key> queued = new HashMap<>(); // current key of every vertex on the queue
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(); // may hold stale entries, skipped on removal
+    private Node start;
+    private long keyModifier; // km, so old keys stay valid lower bounds as the start moves
+    private int expanded;
+
+    private static record Key(long first, long second) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            return first != other.first() ? Long.compare(first, other.first()) : Long.compare(second, other.second());
+        }
+    }
+
+    private static record Entry(Node node, Key key) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            return key.compareTo(other.key());
+        }
+    }
+
+    public IncrementalPlanner(Node start, Node goal) {
+        this(start, goal, Heuristic.MANHATTAN);
+    }
+
+    public IncrementalPlanner(Node start, Node goal, Heuristic heuristic) {
+        this.start = start;
+        this.goal = goal;
+        this.heuristic = heuristic == null ? Heuristic.MANHATTAN : heuristic;
+
+        rhs.put(goal, 0L);
+        enqueue(goal);
+    }
+
+    public Node getStart() {
+        return start;
+    }
+
+    public Node getGoal() {
+        return goal;
+    }
+
+    // vertices expanded by every plan() so far
+    public int getExpandedCount() {
+        return expanded;
+    }
+
+    // the agent has moved along (or off) the last path
+    public void moveTo(Node node) {
+        keyModifier += heuristic.estimate(start, node);
+        start = node;
+    }
+
+    public void updateEdge(Node a, Node b, int weight) {
+        if (!a.updateAdjacent(b, weight))
+            throw new PathfindingException(a, b, "Cannot update an edge that doesn't exist");
+
+        updateVertex(a);
+        updateVertex(b);
+    }
+
+    public void removeEdge(Node a, Node b) {
+        if (!a.removeAdjacent(b))
+            throw new PathfindingException(a, b, "Cannot remove an edge that doesn't exist");
+
+        updateVertex(a);
+        updateVertex(b);
+    }
+
+    // shortest path from the current start to the goal, repaired from the previous plan
+    public PathSegment plan() {
+        computeShortestPath();
+
+        // no solution, so don't move (rhs rather than g, the start itself may be left overconsistent)
+        if (rhs(start) >= INFINITE)
+            return new PathSegment(start, null, 0, 0);
+
+        var segment = new PathSegment(start, null, 0, 0);
+        var visited = new HashSet<Node>();
+        var node = start;
+
+        // greedily descend g, which is exact for every vertex on a shortest path once computeShortestPath is done
+        while (node != goal && visited.add(node)) {
+            Connection best = null;
+            var bestCost = INFINITE;
+
+            for (var adjacent : node.getAdjacent()) {
+                var cost = adjacent.weight() + g(adjacent.node());
+                if (cost < bestCost) {
+                    best = adjacent;
+                    bestCost = cost;
+                }
+            }
+
+            if (best == null) break;
+
+            node = best.node();
+            segment = new PathSegment(node, segment, segment.cost() + best.weight(), 0);
+        }
+
+        return segment;
+    }
+
+    private void computeShortestPath() {
+        while (!queue.isEmpty()) {
+            // an entry is stale once its vertex was requeued with a new Key instance, or taken off the queue
+            var top = queue.peek();
+            if (queued.get(top.node()) != top.key()) {
+                queue.poll();
+                continue;
+            }
+
+            if (top.key().compareTo(key(start)) >= 0 && rhs(start) <= g(start))
+                break;
+
+            queue.poll();
+            queued.remove(top.node());
+
+            var node = top.node();
+            var current = key(node);
+            expanded++;
+
+            if (top.key().compareTo(current) < 0) {
+                enqueue(node);
+            } else if (g(node) > rhs(node)) {
+                g.put(node, rhs(node));
+                for (var adjacent : node.getAdjacent())
+                    updateVertex(adjacent.node());
+            } else {
+                g.put(node, INFINITE);
+                updateVertex(node);
+                for (var adjacent : node.getAdjacent())
+                    updateVertex(adjacent.node());
+            }
+        }
+    }
+
+    private void updateVertex(Node node) {
+        if (node != goal) {
+            var best = INFINITE;
+            for (var adjacent : node.getAdjacent())
+                best = Math.min(best, adjacent.weight() + g(adjacent.node()));
+
+            rhs.put(node, Math.min(best, INFINITE));
+        }
+
+        if (g(node) != rhs(node)) enqueue(node);
+        else queued.remove(node);
+    }
+
+    private void enqueue(Node node) {
+        var key = key(node);
+        queued.put(node, key);
+        queue.add(new Entry(node, key));
+    }
+
+    private Key key(Node node) {
+        var distance = Math.min(g(node), rhs(node));
+        return new Key(distance + heuristic.estimate(start, node) + keyModifier, distance);
+    }
+
+    private long g(Node node) {
+        return g.getOrDefault(node, INFINITE);
+    }
+
+    private long rhs(Node node) {
+        return rhs.getOrDefault(node, INFINITE);
+    }
+}
@@ -0,0 +1,340 @@
+package pathfinder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static pathfinder.Pathfinder.*;
+import static pathfinder.QueryableCollection.*;
+
+// A* over jump points for graphs shaped like uniform-cost grids: every edge joins cells one step apart,
+// all straight edges share one weight and all diagonal edges another (in (straight, 2 * straight)), and any two
+// neighbouring cells are joined, diagonal ones too once there are diagonal edges at all (corners may be cut).
+// the pruning takes a missing edge for a missing cell, so a cell can only block the way by not being there.
+// start's whole component is checked for that before the search, once until something in it changes, and on
+// anything else the search gives up. the check is part of the search as far as its limits go. a grid that passes
+// is laid out in an array by coordinates for the jumps to scan, so one that fills less than a quarter of its
+// bounding box, a long winding corridor say, is left to A* as well.
+class JumpPointSearch {
+    private final Node goal;
+    private final Component grid;
+    private final Node[] cells;
+    private final int width;
+    private final int height;
+    private final int goalX; // the goal's cell in the grid's own coordinates, see x(), -1 when it lies outside
+    private final int goalY;
+    private final boolean diagonal;
+    private final int straightWeight;
+    private final int diagonalWeight;
+
+    private static class NotAGridException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotAGridException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // what checking a component found. a grid's cells are laid out densely, cells[(x - minX) * height + y - minY] is
+    // the node on (x, y) or null, and also tell which part was checked, since removing edges can split the nodes one
+    // root stands for. cells is null for anything that isn't a grid
+    record Component(long version, Node[] cells, int minX, int minY, int width, int height,
+                     boolean diagonal, int straightWeight, int diagonalWeight) {
+        boolean grid() {
+            return cells != null;
+        }
+
+        Node at(long x, long y) {
+            x -= minX;
+            y -= minY;
+            return x < 0 || x >= width || y < 0 || y >= height ? null : cells[(int) x * height + (int) y];
+        }
+    }
+
+    private JumpPointSearch(Node goal, Component component) {
+        this.goal = goal;
+        this.grid = component;
+        this.cells = component.cells();
+        this.width = component.width();
+        this.height = component.height();
+
+        long x = (long) goal.getX() - component.minX(), y = (long) goal.getY() - component.minY();
+        var inside = x >= 0 && x < width && y >= 0 && y < height;
+        this.goalX = inside ? (int) x : -1;
+        this.goalY = inside ? (int) y : -1;
+        this.diagonal = component.diagonal();
+        this.straightWeight = component.straightWeight();
+        this.diagonalWeight = component.diagonalWeight();
+    }
+
+    // null when the graph isn't a grid, so the caller can fall back to plain A*. also null when a limit fired while
+    // checking, A* then stops at its first check with the start alone, like it would have had it run from the start
+    static PathSegment traverse(Node start, Node goal, SearchMonitor monitor) {
+        var component = component(start, monitor);
+        return component != null && component.grid() ? new JumpPointSearch(goal, component).search(start, monitor) : null;
+    }
+
+    // each component keeps what its check found until something in it changes, so repeated searches over one grid
+    // check it once however many other graphs there are. a check a limit cut short is null and isn't kept
+    private static Component component(Node start, SearchMonitor monitor) {
+        var version = start.getComponentVersion();
+        var known = start.getJumpPoints();
+        if (known != null && known.version() == version && (!known.grid() || known.at(start.getX(), start.getY()) == start))
+            return known;
+
+        Component component;
+        try {
+            component = check(start, new HashMap<>(), version, monitor);
+            if (component == null) return null;
+        } catch (NotAGridException e) {
+            component = new Component(version, null, 0, 0, 0, 0, false, -1, -1);
+        }
+
+        start.setJumpPoints(component);
+        return component;
+    }
+
+    private PathSegment search(Node start, SearchMonitor monitor) {
+        var open = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+        var closed = new HashSet<Node>();
+        var bytes = addOpen(open, new PathSegment(start, null, 0, estimate(start)), MemoryLayout.PATH_SEGMENT);
+
+        while (open.size() > 0) {
+            var segment = open.remove();
+            var node = segment.latest();
+
+            // return complete or closest solution
+            if (!monitor.test(open.size(), closed.size(), bytes) || node.matches(goal))
+                return fillGaps(segment);
+
+            if (closed.add(node))
+                bytes += MemoryLayout.HASH_ENTRY;
+
+            var parent = segment.previous();
+            var dx = parent == null ? 0 : Integer.signum(node.getX() - parent.latest().getX());
+            var dy = parent == null ? 0 : Integer.signum(node.getY() - parent.latest().getY());
+
+            for (var direction : successorDirections(node, dx, dy)) {
+                if (direction == null) continue;
+
+                var cell = jump(x(node), y(node), direction[0], direction[1]);
+                if (cell < 0) continue;
+
+                var next = cells[cell];
+                if (closed.contains(next)) continue;
+
+                monitor.relax();
+                var steps = Math.max(Math.abs(next.getX() - node.getX()), Math.abs(next.getY() - node.getY()));
+                var cost = segment.cost() + steps * (direction[0] != 0 && direction[1] != 0 ? diagonalWeight : straightWeight);
+                bytes += addOpen(open, new PathSegment(next, segment, cost, estimate(next)), MemoryLayout.PATH_SEGMENT);
+            }
+        }
+
+        // no solution, so don't move
+        return new PathSegment(start, null, 0, 0);
+    }
+
+    // natural and forced neighbours of a node entered moving in direction (dx, dy), or all neighbours at the start;
+    // null entries are pruned directions
+    private int[][] successorDirections(Node node, int dx, int dy) {
+        if (dx == 0 && dy == 0)
+            return diagonal
+                    ? new int[][] { {1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1} }
+                    : new int[][] { {1, 0}, {-1, 0}, {0, 1}, {0, -1} };
+
+        if (!diagonal)
+            return dx != 0
+                    ? new int[][] { {dx, 0}, {0, 1}, {0, -1} }
+                    : new int[][] { {0, dy}, {1, 0}, {-1, 0} };
+
+        if (dx != 0 && dy != 0)
+            return new int[][] {
+                    {dx, 0}, {0, dy}, {dx, dy},
+                    open(node, -dx, 0) ? null : new int[] {-dx, dy},
+                    open(node, 0, -dy) ? null : new int[] {dx, -dy}
+            };
+
+        return dx != 0
+                ? new int[][] { {dx, 0}, open(node, 0, 1) ? null : new int[] {dx, 1}, open(node, 0, -1) ? null : new int[] {dx, -1} }
+                : new int[][] { {0, dy}, open(node, 1, 0) ? null : new int[] {1, dy}, open(node, -1, 0) ? null : new int[] {-1, dy} };
+    }
+
+    // walks from (x, y) in direction (dx, dy) until something interesting shows up: the goal or a forced neighbour.
+    // the cell it stopped on, or -1 when it ran out of cells first. scans the array, the nodes are only looked at
+    // once a jump point is found
+    private int jump(int x, int y, int dx, int dy) {
+        for (x += dx, y += dy; open(x, y); x += dx, y += dy) {
+            if ((x == goalX && y == goalY) || hasForcedNeighbour(x, y, dx, dy))
+                return x * height + y;
+
+            // diagonal moves (and vertical ones on 4-connected grids) stop where a sideways jump finds something
+            if (dx != 0 && dy != 0 && (jump(x, y, dx, 0) >= 0 || jump(x, y, 0, dy) >= 0))
+                return x * height + y;
+            if (!diagonal && dx == 0 && (jump(x, y, 1, 0) >= 0 || jump(x, y, -1, 0) >= 0))
+                return x * height + y;
+        }
+
+        return -1;
+    }
+
+    private boolean hasForcedNeighbour(int x, int y, int dx, int dy) {
+        if (!diagonal) {
+            // the cell we came from always exists, so its sideways cells are reachable through it
+            int px = x - dx, py = y - dy;
+            return dx != 0
+                    ? (open(x, y + 1) && !open(px, py + 1)) || (open(x, y - 1) && !open(px, py - 1))
+                    : (open(x + 1, y) && !open(px + 1, py)) || (open(x - 1, y) && !open(px - 1, py));
+        }
+
+        if (dx != 0 && dy != 0)
+            return (open(x - dx, y + dy) && !open(x - dx, y)) || (open(x + dx, y - dy) && !open(x, y - dy));
+
+        return dx != 0
+                ? (open(x + dx, y + 1) && !open(x, y + 1)) || (open(x + dx, y - 1) && !open(x, y - 1))
+                : (open(x + 1, y + dy) && !open(x + 1, y)) || (open(x - 1, y + dy) && !open(x - 1, y));
+    }
+
+    // whether the grid has a cell on (x, y), in its own coordinates
+    private boolean open(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && cells[x * height + y] != null;
+    }
+
+    private boolean open(Node node, int dx, int dy) {
+        return open(x(node) + dx, y(node) + dy);
+    }
+
+    // a grid node's coordinates relative to the grid's corner, which always fit its array
+    private int x(Node node) {
+        return node.getX() - grid.minX();
+    }
+
+    private int y(Node node) {
+        return node.getY() - grid.minY();
+    }
+
+    // the neighbour one cell away in direction (dx, dy), if there is one. the check made sure a cell is there
+    // exactly when there's an edge to it
+    private Node step(Node node, int dx, int dy) {
+        return grid.at((long) node.getX() + dx, (long) node.getY() + dy);
+    }
+
+    // walks start's component once to learn its cells, edge directions and weights, then makes sure every node has
+    // an edge towards each neighbouring cell and nothing else
+    private static Component check(Node start, HashMap<Long, Node> cells, long version, SearchMonitor monitor) {
+        var queue = new ArrayDeque<Node>();
+        var diagonal = false;
+        int straightWeight = -1, diagonalWeight = -1;
+
+        cells.put(cell(start.getX(), start.getY()), start);
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            if (!monitor.test(queue.size(), cells.size(), cells.size() * MemoryLayout.JPS_CELL)) return null;
+
+            var node = queue.poll();
+            for (var adjacent : node.getAdjacent()) {
+                var next = adjacent.node();
+                int dx = next.getX() - node.getX(), dy = next.getY() - node.getY();
+
+                if (Math.abs(dx) > 1 || Math.abs(dy) > 1 || (dx == 0 && dy == 0))
+                    throw new NotAGridException();
+
+                if (dx != 0 && dy != 0) {
+                    diagonal = true;
+                    if (diagonalWeight < 0) diagonalWeight = adjacent.weight();
+                    if (adjacent.weight() != diagonalWeight) throw new NotAGridException();
+                } else {
+                    if (straightWeight < 0) straightWeight = adjacent.weight();
+                    if (adjacent.weight() != straightWeight) throw new NotAGridException();
+                }
+
+                // two nodes on one cell
+                var known = cells.putIfAbsent(cell(next.getX(), next.getY()), next);
+                if (known == null) queue.add(next);
+                else if (known != next) throw new NotAGridException();
+            }
+        }
+
+        // jump point pruning is only optimal while one diagonal step beats two straight ones but not one
+        if (diagonal && straightWeight >= 0
+                && (diagonalWeight <= straightWeight || diagonalWeight >= 2 * straightWeight))
+            throw new NotAGridException();
+
+        // a missing edge between two cells that are there, a wall between open cells or a corner that can't be cut
+        for (var node : cells.values()) {
+            if (!monitor.test(0, cells.size(), cells.size() * MemoryLayout.JPS_CELL)) return null;
+
+            int edges = 0, neighbours = 0;
+            for (var adjacent : node.getAdjacent())
+                edges |= direction(adjacent.node().getX() - node.getX(), adjacent.node().getY() - node.getY());
+
+            for (int dx = -1; dx <= 1; dx++)
+                for (int dy = -1; dy <= 1; dy++)
+                    if ((dx != 0 || dy != 0) && (diagonal || dx == 0 || dy == 0) && cells.containsKey(cell(node.getX() + dx, node.getY() + dy)))
+                        neighbours |= direction(dx, dy);
+
+            if (edges != neighbours) throw new NotAGridException();
+        }
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (var node : cells.values()) {
+            minX = Math.min(minX, node.getX());
+            minY = Math.min(minY, node.getY());
+            maxX = Math.max(maxX, node.getX());
+            maxY = Math.max(maxY, node.getY());
+        }
+
+        long width = (long) maxX - minX + 1, height = (long) maxY - minY + 1;
+        if (width * height > Math.min(4L * cells.size(), Integer.MAX_VALUE - 8))
+            throw new NotAGridException();
+
+        var dense = new Node[(int) (width * height)];
+        for (var node : cells.values())
+            dense[(int) ((node.getX() - minX) * height + node.getY() - minY)] = node;
+
+        return new Component(version, dense, minX, minY, (int) width, (int) height, diagonal, straightWeight, diagonalWeight);
+    }
+
+    private static int direction(int dx, int dy) {
+        return 1 << (dx + 1) * 3 + dy + 1;
+    }
+
+    private static long cell(int x, int y) {
+        return (long) x << 32 | y & 0xffffffffL;
+    }
+
+    // octile distance on 8-connected grids, Manhattan distance on 4-connected ones
+    private int estimate(Node node) {
+        int dx = Math.abs(node.getX() - goal.getX()), dy = Math.abs(node.getY() - goal.getY());
+        int straight = Math.max(straightWeight, 0), diagonalStep = Math.max(diagonalWeight, straight);
+
+        return diagonal
+                ? straight * Math.abs(dx - dy) + diagonalStep * Math.min(dx, dy)
+                : straight * (dx + dy);
+    }
+
+    // expands consecutive jump points, which always lie on a straight or diagonal line, into every cell between them
+    private PathSegment fillGaps(PathSegment endSegment) {
+        var jumpPoints = new ArrayList<PathSegment>();
+        for (var segment = endSegment; segment != null; segment = segment.previous())
+            jumpPoints.add(segment);
+        Collections.reverse(jumpPoints);
+
+        var result = jumpPoints.get(0);
+        for (int i = 1; i < jumpPoints.size(); i++) {
+            var target = jumpPoints.get(i).latest();
+            var node = result.latest();
+            int dx = Integer.signum(target.getX() - node.getX()), dy = Integer.signum(target.getY() - node.getY());
+            var weight = dx != 0 && dy != 0 ? diagonalWeight : straightWeight;
+
+            while (node != target) {
+                node = step(node, dx, dy);
+                result = new PathSegment(node, result, result.cost() + weight, estimate(node));
+            }
+        }
+
+        return result;
+    }
+}
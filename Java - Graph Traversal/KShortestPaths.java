@@ -0,0 +1,168 @@
+package pathfinder;
+
+import java.util.*;
+
+import static pathfinder.Pathfinder.*;
+import static pathfinder.QueryableCollection.*;
+
+// Yen's k shortest loopless paths, always by edge weight. One Dijkstra from the goal gives every node's exact
+// distance to it, which every spur search then uses as its A* heuristic: removing edges and nodes only makes
+// distances longer, so it stays admissible and a spur search mostly walks straight down the tree. Nodes the
+// tree never reached can't reach the goal (within maxCost) at all and are never opened.
+// Only as many candidates as there are paths still missing are kept; once that's full, the most expensive one
+// bounds every further spur search, since nothing costing as much could still make the cut.
+class KShortestPaths {
+    private final Node goal;
+    private final int maxCost;
+    private final HashMap<Node, Integer> toGoal;
+
+    private KShortestPaths(Node goal, int maxCost) {
+        this.goal = goal;
+        this.maxCost = maxCost;
+        this.toGoal = new HashMap<>();
+    }
+
+    // at most k paths costing no more than maxCost each, cheapest first
+    static List<PathSegment> search(Node start, Node goal, int k, int maxCost) {
+        return new KShortestPaths(goal, maxCost).search(start, k);
+    }
+
+    private List<PathSegment> search(Node start, int k) {
+        var paths = new ArrayList<PathSegment>();
+        var first = shortestPathTree(start);
+        if (first == null) return paths;
+
+        // candidates are keyed by their node sequence, the same deviation can be found from several parents
+        var candidates = new ArrayList<PathSegment>(); // cheapest first
+        var seen = new HashSet<List<Node>>();
+        var accepted = new ArrayList<Node[]>();
+        seen.add(toList(first));
+        paths.add(first);
+
+        while (paths.size() < k) {
+            var previous = paths.get(paths.size() - 1);
+            var segments = segments(previous);
+            var nodes = new Node[segments.length];
+            for (int i = 0; i < segments.length; i++)
+                nodes[i] = segments[i].latest();
+
+            accepted.add(nodes);
+
+            var rootNodes = new HashSet<Node>();
+            for (int i = 0; i < segments.length - 1; i++) {
+                var spur = segments[i];
+
+                // an accepted path sharing this root already leaves spur by its next edge, so that edge is out
+                var bannedNext = new HashSet<Node>();
+                for (var path : accepted)
+                    if (path.length > i + 1 && sharesRoot(path, nodes, i))
+                        bannedNext.add(path[i + 1]);
+
+                var needed = k - paths.size();
+                var bound = candidates.size() < needed ? maxCost : candidates.get(needed - 1).cost() - 1;
+                var candidate = spurSearch(spur, rootNodes, bannedNext, bound);
+                if (candidate != null && seen.add(toList(candidate)))
+                    insert(candidates, candidate, needed);
+
+                rootNodes.add(spur.latest());
+            }
+
+            if (candidates.isEmpty()) break;
+            paths.add(candidates.remove(0));
+        }
+
+        return paths;
+    }
+
+    // Dijkstra from the goal over the whole component (or up to maxCost), filling toGoal.
+    // start's own tree branch, turned around, is the shortest path; null when start isn't reached
+    private PathSegment shortestPathTree(Node start) {
+        var open = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+        PathSegment startBranch = null;
+
+        open.add(new PathSegment(goal, null, 0, 0));
+
+        while (open.size() > 0) {
+            var segment = open.remove();
+            var node = segment.latest();
+            if (segment.cost() > maxCost) break;
+
+            toGoal.put(node, segment.cost());
+            if (node == start) startBranch = segment;
+
+            for (var adjacent : node.getAdjacent())
+                if (!toGoal.containsKey(adjacent.node()))
+                    open.add(new PathSegment(adjacent.node(), segment, segment.cost() + adjacent.weight(), 0));
+        }
+
+        if (startBranch == null) return null;
+
+        // the branch runs start to goal from its head, the path chain has to end at the goal
+        PathSegment path = null;
+        for (var segment = startBranch; segment != null; segment = segment.previous())
+            path = new PathSegment(segment.latest(), path, startBranch.cost() - segment.cost(), segment.cost());
+
+        return path;
+    }
+
+    // A* from the spur segment, which already carries the root path and its cost, avoiding the root's other
+    // nodes and the banned edges out of the spur node. null when nothing within bound is left
+    private PathSegment spurSearch(PathSegment spur, Set<Node> rootNodes, Set<Node> bannedNext, int bound) {
+        var open = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+        var closed = new HashSet<Node>();
+
+        open.add(spur);
+
+        while (open.size() > 0) {
+            var segment = open.remove();
+            var node = segment.latest();
+            if (node.matches(goal)) return segment;
+
+            closed.add(node);
+
+            for (var adjacent : node.getAdjacent()) {
+                var next = adjacent.node();
+                if (closed.contains(next) || rootNodes.contains(next) || segment == spur && bannedNext.contains(next)) continue;
+
+                var estimate = toGoal.get(next);
+                var cost = segment.cost() + adjacent.weight();
+                if (estimate == null || cost + estimate > bound) continue;
+
+                open.add(new PathSegment(next, segment, cost, estimate));
+            }
+        }
+
+        return null;
+    }
+
+    // keeps candidates sorted and no longer than needed
+    private static void insert(List<PathSegment> candidates, PathSegment candidate, int needed) {
+        var position = 0;
+        while (position < candidates.size() && candidates.get(position).cost() <= candidate.cost())
+            position++;
+
+        candidates.add(position, candidate);
+        if (candidates.size() > needed)
+            candidates.remove(candidates.size() - 1);
+    }
+
+    private static boolean sharesRoot(Node[] path, Node[] nodes, int spurIndex) {
+        for (int i = 0; i <= spurIndex; i++)
+            if (path[i] != nodes[i])
+                return false;
+
+        return true;
+    }
+
+    private static PathSegment[] segments(PathSegment endSegment) {
+        var length = 0;
+        for (var segment = endSegment; segment != null; segment = segment.previous())
+            length++;
+
+        var segments = new PathSegment[length];
+        for (var segment = endSegment; segment != null; segment = segment.previous())
+            segments[--length] = segment;
+
+        return segments;
+    }
+}
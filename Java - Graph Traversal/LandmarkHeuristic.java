@@ -0,0 +1,134 @@
+package pathfinder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+// ALT: exact distances from a few landmarks bound the distance between any two nodes through the triangle
+// inequality, |d(L, goal) - d(L, current)| <= d(current, goal), whatever the edge weights look like
+public class LandmarkHeuristic implements Heuristic {
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final CompactGraph graph;
+    private final int[] landmarks;
+    private final int[][] distances; // distances[i][node] from landmarks[i]
+    private final int[] twins; // the nodes on one pair of coordinates as a cycle, twins[node] == node when it's alone
+
+    private LandmarkHeuristic(CompactGraph graph, int[] landmarks, int[][] distances) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.distances = distances;
+        this.twins = twins(graph);
+    }
+
+    // farthest-point selection: each new landmark is the node farthest from all landmarks picked so far,
+    // which also spreads landmarks over every connected component
+    public static LandmarkHeuristic build(CompactGraph graph, int landmarkCount) {
+        if (landmarkCount <= 0 || graph.size() == 0)
+            throw new Pathfinder.PathfindingException("Landmark heuristic needs a non-empty graph and at least 1 landmark.");
+
+        landmarkCount = Math.min(landmarkCount, graph.size());
+        var landmarks = new int[landmarkCount];
+        var distances = new int[landmarkCount][];
+        // the first landmark is whatever lies farthest from an arbitrary node (unreachable counts as farthest)
+        var closest = shortestDistances(graph, 0);
+
+        for (int i = 0; i < landmarkCount; i++) {
+            var farthest = 0;
+            for (int node = 1; node < graph.size(); node++)
+                if (closest[node] > closest[farthest])
+                    farthest = node;
+
+            landmarks[i] = farthest;
+            distances[i] = shortestDistances(graph, farthest);
+
+            for (int node = 0; node < graph.size(); node++)
+                closest[node] = i == 0 ? distances[i][node] : Math.min(closest[node], distances[i][node]);
+        }
+
+        return new LandmarkHeuristic(graph, landmarks, distances);
+    }
+
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    // nodes the landmarks were never measured from, like coordinate-only goals or another graph's nodes, get 0,
+    // still a lower bound, rather than failing the search
+    @Override
+    public int estimate(Node current, Node goal) {
+        int from = graph.find(current), to = graph.find(goal);
+        return from < 0 || to < 0 ? 0 : estimate(graph, from, to);
+    }
+
+    @Override
+    public int estimate(CompactGraph graph, int current, int goal) {
+        if (graph != this.graph)
+            return estimate(graph.node(current), graph.node(goal));
+
+        // a search stops on any node with the goal's coordinates, so the bound has to hold for the nearest of them
+        var best = bound(current, goal);
+        for (int twin = twins[goal]; twin != goal && best > 0; twin = twins[twin])
+            best = Math.min(best, bound(current, twin));
+
+        return best;
+    }
+
+    private int bound(int current, int goal) {
+        var best = 0;
+        for (var table : distances) {
+            // a landmark that can't reach both nodes says nothing about them
+            if (table[current] == UNREACHABLE || table[goal] == UNREACHABLE) continue;
+            best = Math.max(best, Math.abs(table[goal] - table[current]));
+        }
+
+        return best;
+    }
+
+    // landmarks measured on a snapshot's graph() guide searches over that snapshot. any other version may have
+    // cheaper edges than they were measured on, which would make them overestimate, so it gets 0
+    @Override
+    public int estimate(VersionedGraph.Snapshot graph, int current, int goal) {
+        return graph.builtGraph() == this.graph ? estimate(this.graph, current, goal) : 0;
+    }
+
+    private static int[] twins(CompactGraph graph) {
+        var twins = new int[graph.size()];
+        var first = new HashMap<Long, Integer>();
+
+        for (int node = 0; node < twins.length; node++) {
+            var other = first.putIfAbsent((long) graph.x(node) << 32 | graph.y(node) & 0xffffffffL, node);
+            twins[node] = other == null ? node : twins[other];
+            if (other != null) twins[other] = node;
+        }
+
+        return twins;
+    }
+
+    private static int[] shortestDistances(CompactGraph graph, int source) {
+        var distances = new int[graph.size()];
+        var queue = new PriorityQueue<long[]>((a, b) -> Long.compare(a[0], b[0]));
+
+        Arrays.fill(distances, UNREACHABLE);
+        distances[source] = 0;
+        queue.add(new long[] { 0, source });
+
+        while (!queue.isEmpty()) {
+            var entry = queue.poll();
+            var node = (int) entry[1];
+            if (entry[0] > distances[node]) continue;
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                var next = graph.target(edge);
+                var cost = distances[node] + graph.weight(edge);
+
+                if (cost < distances[next]) {
+                    distances[next] = cost;
+                    queue.add(new long[] { cost, next });
+                }
+            }
+        }
+
+        return distances;
+    }
+}
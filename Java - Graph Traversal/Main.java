@@ -52,5 +52,36 @@ public class Main {
 
         System.out.println(Pathfinder.skipSteps(r, 1));
         System.out.println(Pathfinder.skipSteps(Pathfinder.toList(r), 2));
+
+        System.out.println(Pathfinder.toList(p.traverse(n1, n6, SearchOptions.of(PathStrategy.Uniform).withBidirectional(true))));
+        System.out.println(Pathfinder.toList(p.asyncTraverse(n6, n1, SearchOptions.of(PathStrategy.Greedy).withNodeLimit(5)).get()));
+
+        var graph = CompactGraph.from(n1);
+        System.out.println(Pathfinder.toList(p.traverse(graph, graph.indexOf(n1), graph.indexOf(n6))));
+
+        // 8-connected grid that doesn't let diagonal steps cut past the wall's corners, which jump point pruning
+        // can't handle, so JumpPoint has to fall back to plain A* and agree with Optimal
+        var cells = new Node[5][5];
+        for (int x = 0; x < 5; x++)
+            for (int y = 0; y < 5; y++)
+                if (x != 2 || y == 4) cells[x][y] = new Node(x, y);
+
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y < 5; y++) {
+                if (cells[x][y] == null) continue;
+                if (x + 1 < 5 && cells[x + 1][y] != null) cells[x][y].addAdjacent(cells[x + 1][y], 10);
+                if (y + 1 < 5 && cells[x][y + 1] != null) cells[x][y].addAdjacent(cells[x][y + 1], 10);
+
+                for (var dy : new int[] {-1, 1})
+                    if (x + 1 < 5 && y + dy >= 0 && y + dy < 5 && cells[x + 1][y + dy] != null && cells[x + 1][y] != null && cells[x][y + dy] != null)
+                        cells[x][y].addAdjacent(cells[x + 1][y + dy], 14);
+            }
+        }
+
+        var jumpPoint = p.traverse(cells[0][0], cells[4][0], SearchOptions.of(PathStrategy.JumpPoint));
+        var optimal = p.traverse(cells[0][0], cells[4][0], SearchOptions.of(PathStrategy.Optimal));
+        System.out.println(jumpPoint.cost() + " " + Pathfinder.toList(jumpPoint));
+        if (jumpPoint.cost() != optimal.cost() || !jumpPoint.latest().matches(cells[4][0]))
+            throw new IllegalStateException("JumpPoint and Optimal disagree on a grid without corner cutting.");
     }
 }
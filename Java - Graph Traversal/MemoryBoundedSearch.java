@@ -0,0 +1,374 @@
+package pathfinder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+import static pathfinder.Pathfinder.*;
+
+// IterativeDeepening (IDA*) and MemoryBounded (SMA*): searches that never hold more nodes than the node and memory
+// limits allow, see SearchMonitor.budget, and pay for it by expanding nodes again instead of giving up.
+// IDA* keeps the current path and, as far as the budget allows, the cheapest cost each pass reached every node at.
+// SMA* behaves like A* until memory is full, then forgets its worst leaves and remembers their cost in the parent,
+// so it is optimal whenever the optimal path itself fits in the budget.
+// On a tight budget either has to try every path that fits before it can tell the goal doesn't, which takes
+// exponential time on graphs with many routes between the same nodes, so pair one with a time limit.
+// S is whatever identifies a node, see SearchSpace.
+final class MemoryBoundedSearch<S> {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int UNSEEN = -1;
+
+    private final SearchSpace<S> space;
+
+    MemoryBoundedSearch(SearchSpace<S> space) {
+        this.space = space;
+    }
+
+    PathSegment traverse(S start, SearchOptions options, SearchMonitor monitor) {
+        return options.strategy() == PathStrategy.IterativeDeepening
+                ? iterativeDeepening(start, monitor)
+                : memoryBounded(start, monitor);
+    }
+
+    // depth-first passes bounded by cost + estimate. the path is an explicit stack, so long paths don't overflow the
+    // thread's stack. a pass remembers the cheapest cost it reached each state at (and, under a budget, how deep) and
+    // skips visits that can't beat it, or it would try every simple path, which never ends on an unreachable goal.
+    // those visits get whatever budget the path leaves and are dropped when the path needs the room.
+    // raising the bound only to the smallest cut-off costs a pass per distinct cost on weighted graphs, so while passes
+    // don't double what they look at it grows by a doubling step. a goal past the smallest cut-off may not be the
+    // cheapest, so it only lowers the bound below its cost for the rest of the pass
+    private PathSegment iterativeDeepening(S start, SearchMonitor monitor) {
+        var frameBytes = MemoryLayout.IDA_FRAME + space.stateBytes();
+        var seenBytes = MemoryLayout.IDA_SEEN + space.stateBytes();
+        var budget = monitor.budget(frameBytes);
+        var seenBudget = monitor.budget(seenBytes);
+        var states = new Object[16];
+        var costs = new int[16];
+        var cursors = new int[16]; // next edge to try, -1 before the frame is first looked at
+        var onPath = new HashSet<S>();
+        var seen = new HashMap<S, Long>(); // cost << 32 | depth
+        var closest = new PathSegment(space.node(start), null, 0, space.estimate(start));
+        var threshold = closest.estimate();
+        var proven = threshold; // no goal is cheaper than this
+        var step = 0L;
+        var lastLooked = 0L;
+
+        while (true) {
+            var next = INFINITY;
+            var capped = false;
+            var found = false;
+            var looked = 0L;
+            var depth = 0;
+
+            states[0] = start;
+            costs[0] = 0;
+            cursors[depth++] = -1;
+            onPath.add(start);
+            seen.clear();
+            seen.put(start, 0L);
+
+            while (depth > 0) {
+                var top = depth - 1;
+                @SuppressWarnings("unchecked") var state = (S) states[top];
+
+                if (cursors[top] < 0) {
+                    var estimate = space.estimate(state);
+                    var f = costs[top] + estimate;
+                    if (f > threshold) {
+                        next = Math.min(next, f);
+                        onPath.remove(states[--depth]);
+                        continue;
+                    }
+
+                    if (space.isGoal(state) || estimate < closest.estimate()) {
+                        closest = toPathSegment(states, costs, depth, estimate);
+                        if (space.isGoal(state)) {
+                            if (costs[top] <= proven) return closest;
+
+                            // only a cheaper goal can still beat it
+                            found = true;
+                            threshold = costs[top] - 1;
+                            onPath.remove(states[--depth]);
+                            continue;
+                        }
+                    }
+
+                    // return closest solution
+                    if (!monitor.test(depth, depth + seen.size(), depth * frameBytes + seen.size() * seenBytes)) return closest;
+                    looked++;
+                    cursors[top] = 0;
+                }
+
+                if (cursors[top] == space.degree(state)) {
+                    onPath.remove(states[--depth]);
+                    continue;
+                }
+
+                var edge = cursors[top]++;
+                var neighbour = space.neighbour(state, edge);
+                if (onPath.contains(neighbour)) continue;
+
+                var cost = costs[top] + space.weight(state, edge);
+                var known = seen.get(neighbour);
+                if (known != null && (int) (known >>> 32) <= cost && (budget == Integer.MAX_VALUE || known.intValue() <= depth))
+                    continue;
+
+                if (depth == budget) {
+                    capped = true;
+                    continue;
+                }
+
+                monitor.relax();
+                if (known == null && (double) (depth + 1) / budget + (double) (seen.size() + 1) / seenBudget > 1)
+                    seen.clear();
+
+                seen.put(neighbour, (long) cost << 32 | depth);
+                if (depth == states.length) {
+                    states = Arrays.copyOf(states, depth * 2);
+                    costs = Arrays.copyOf(costs, depth * 2);
+                    cursors = Arrays.copyOf(cursors, depth * 2);
+                }
+
+                states[depth] = neighbour;
+                costs[depth] = cost;
+                cursors[depth++] = -1;
+                onPath.add(neighbour);
+            }
+
+            if (found) return closest;
+
+            if (next == INFINITY) {
+                if (!capped) return new PathSegment(space.node(start), null, 0, 0); // no solution, so don't move
+
+                monitor.budgetExhausted();
+                return closest;
+            }
+
+            step = looked < 2 * lastLooked ? Math.max(1, 2 * step) : step / 2;
+            lastLooked = looked;
+            proven = next;
+            threshold = (int) Math.min(INFINITY - 1, Math.max(next, threshold + step));
+        }
+    }
+
+    private PathSegment toPathSegment(Object[] states, int[] costs, int depth, int estimate) {
+        PathSegment result = null;
+        for (int i = 0; i < depth; i++) {
+            @SuppressWarnings("unchecked") var state = (S) states[i];
+            result = new PathSegment(space.node(state), result, costs[i], i == depth - 1 ? estimate : 0);
+        }
+
+        return result;
+    }
+
+    // a node SMA* holds on to. successors are generated one at a time into their slot, which keeps the successor
+    // while it's held and the f it had once it's forgotten, so regenerating it starts from what was learned
+    private static class Entry<S> {
+        final S state;
+        final Entry<S> parent;
+        final int edge; // which of parent's slots this is
+        final int cost;
+        final int depth;
+        final long order; // ties on f and depth go to the older entry, TreeSet needs a total order
+        int f;
+        int held;
+        int unseen;
+        Entry<S>[] successors;
+        int[] known; // UNSEEN, or f when last held. INFINITY also stands for successors that can't help
+
+        @SuppressWarnings("unchecked")
+        Entry(S state, Entry<S> parent, int edge, int cost, int f, int degree, long order) {
+            this.state = state;
+            this.parent = parent;
+            this.edge = edge;
+            this.cost = cost;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.f = f;
+            this.order = order;
+            this.unseen = degree;
+            this.successors = (Entry<S>[]) new Entry<?>[degree];
+            this.known = new int[degree];
+            Arrays.fill(known, UNSEEN);
+        }
+
+        // the successor not held with the lowest f last time, ones never seen first. -1 when there's none left
+        int next() {
+            var next = -1;
+            for (int i = 0; i < known.length; i++)
+                if (successors[i] == null && known[i] != INFINITY && (next < 0 || known[i] < known[next]))
+                    next = i;
+
+            return next;
+        }
+
+        // once every successor has been seen, the best of them is a tighter bound than the entry's own f
+        int backedUp() {
+            if (unseen > 0) return f;
+
+            var lowest = INFINITY;
+            for (int i = 0; i < known.length; i++)
+                lowest = Math.min(lowest, successors[i] != null ? successors[i].f : known[i]);
+
+            return Math.max(f, lowest);
+        }
+    }
+
+    // SMA*: A* that generates one successor per step and, once the budget is full, forgets the shallowest of the
+    // highest f leaves, leaving its f behind in its parent's slot. the open set holds every entry with a successor
+    // left to generate, expanded or not. successors as deep as the budget reaches get an infinite f, which is what
+    // makes it give up instead of forgetting and regenerating the same nodes forever when the goal is out of reach.
+    // a successor held at least as cheaply elsewhere, or on its own path, is never generated
+    private PathSegment memoryBounded(S start, SearchMonitor monitor) {
+        var entryBytes = MemoryLayout.SMA_ENTRY + space.stateBytes();
+        var budget = monitor.budget(entryBytes);
+        var open = new TreeSet<Entry<S>>((a, b) -> a.f != b.f ? Integer.compare(a.f, b.f)
+                : a.depth != b.depth ? Integer.compare(b.depth, a.depth)
+                : Long.compare(a.order, b.order));
+        var best = new HashMap<S, Entry<S>>(); // cheapest entry held per state
+        var root = new Entry<S>(start, null, -1, 0, space.estimate(start), space.degree(start), 0);
+        var closest = new PathSegment(space.node(start), null, 0, root.f);
+        var held = new int[]{1};
+        var order = 1L;
+        var capped = false;
+
+        open.add(root);
+        best.put(start, root);
+
+        while (!open.isEmpty()) {
+            var entry = open.first();
+            if (entry.f == INFINITY) break;
+
+            var estimate = space.estimate(entry.state);
+            if (space.isGoal(entry.state)) return toPathSegment(entry, 0);
+            if (estimate < closest.estimate()) closest = toPathSegment(entry, estimate);
+
+            // return closest solution
+            if (!monitor.test(open.size(), held[0], held[0] * entryBytes)) return closest;
+
+            var edge = entry.next();
+            // only the root gets queued with nothing to generate
+            if (edge < 0) {
+                open.remove(entry);
+                continue;
+            }
+
+            var neighbour = space.neighbour(entry.state, edge);
+            var cost = entry.cost + space.weight(entry.state, edge);
+            var known = best.get(neighbour);
+            Entry<S> child = null;
+
+            monitor.relax();
+            if (entry.known[edge] == UNSEEN) entry.unseen--;
+
+            if (known != null && known.cost <= cost || onPath(entry, neighbour)) {
+                entry.known[edge] = INFINITY;
+            } else {
+                var f = Math.max(Math.max(entry.f, cost + space.estimate(neighbour)), entry.known[edge]);
+                if (entry.depth + 2 >= budget && !space.isGoal(neighbour)) {
+                    f = INFINITY;
+                    capped = true;
+                }
+
+                child = new Entry<>(neighbour, entry, edge, cost, f, space.degree(neighbour), order++);
+                entry.successors[edge] = child;
+                entry.held++;
+                held[0]++;
+                best.put(neighbour, child);
+            }
+
+            backUp(entry, open);
+            if (entry.next() < 0) {
+                open.remove(entry);
+                if (entry.held == 0) forget(entry, open, best, held);
+            }
+
+            while (held[0] > budget) {
+                var worst = worstLeaf(open);
+                if (worst == null || worst == root) {
+                    monitor.budgetExhausted();
+                    return closest;
+                }
+
+                capped = true;
+                forget(worst, open, best, held);
+            }
+
+            if (child != null) open.add(child);
+        }
+
+        if (!capped) return new PathSegment(space.node(start), null, 0, 0); // no solution, so don't move
+
+        monitor.budgetExhausted();
+        return closest;
+    }
+
+    // best only knows the cheapest entry per state, the ancestors can still hold a dearer one after that's forgotten
+    private static <S> boolean onPath(Entry<S> entry, S state) {
+        for (var ancestor = entry; ancestor != null; ancestor = ancestor.parent)
+            if (ancestor.state.equals(state))
+                return true;
+
+        return false;
+    }
+
+    // raises f along the ancestors as far as their best successors allow, keeping the open set in order
+    private static <S> void backUp(Entry<S> entry, TreeSet<Entry<S>> open) {
+        for (var current = entry; current != null; current = current.parent) {
+            var f = current.backedUp();
+            if (f == current.f) return;
+
+            var queued = open.remove(current);
+            current.f = f;
+            if (queued) open.add(current);
+        }
+    }
+
+    // expanded entries wait in the open set too while they have successors left to generate, those can't go
+    private static <S> Entry<S> worstLeaf(TreeSet<Entry<S>> open) {
+        for (var entry : open.descendingSet())
+            if (entry.held == 0)
+                return entry;
+
+        return null;
+    }
+
+    // drops a leaf, its parent keeps its f and queues up to regenerate it. a parent left with nothing to hold
+    // or generate is no use either and goes the same way
+    private static <S> void forget(Entry<S> leaf, TreeSet<Entry<S>> open, HashMap<S, Entry<S>> best, int[] held) {
+        for (var entry = leaf; entry != null; entry = entry.parent) {
+            open.remove(entry);
+            best.remove(entry.state, entry);
+            held[0]--;
+
+            var parent = entry.parent;
+            if (parent == null) return;
+
+            parent.successors[entry.edge] = null;
+            parent.known[entry.edge] = entry.f;
+            parent.held--;
+            backUp(parent, open);
+
+            if (parent.next() >= 0) {
+                open.add(parent);
+                return;
+            }
+
+            if (parent.held > 0) return;
+        }
+    }
+
+    private PathSegment toPathSegment(Entry<S> end, int estimate) {
+        var entries = new Object[end.depth + 1];
+        for (var entry = end; entry != null; entry = entry.parent)
+            entries[entry.depth] = entry;
+
+        PathSegment result = null;
+        for (int i = 0; i < entries.length; i++) {
+            @SuppressWarnings("unchecked") var entry = (Entry<S>) entries[i];
+            result = new PathSegment(space.node(entry.state), result, entry.cost, i == entries.length - 1 ? estimate : 0);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package pathfinder;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+
+// shallow sizes of the structures a search allocates, worked out once from the running JVM's object layout
+// (reference size, header size, alignment) instead of peeking at field offsets through Unsafe.
+// array-backed collections are charged two slots per element, since they at most double when they grow
+final class MemoryLayout {
+    static final int REFERENCE;
+    static final int HEADER;
+    static final int ALIGNMENT;
+
+    static {
+        var compressedOops = Boolean.parseBoolean(vmOption("UseCompressedOops",
+                String.valueOf(Runtime.getRuntime().maxMemory() < (32L << 30))));
+        var compressedClasses = Boolean.parseBoolean(vmOption("UseCompressedClassPointers", String.valueOf(compressedOops)));
+        var is32Bit = "32".equals(System.getProperty("sun.arch.data.model"));
+
+        REFERENCE = is32Bit || compressedOops ? 4 : 8;
+        HEADER = is32Bit ? 8 : compressedClasses ? 12 : 16;
+        ALIGNMENT = Integer.parseInt(vmOption("ObjectAlignmentInBytes", "8"));
+    }
+
+    static final long PATH_SEGMENT = object(2, 2); // latest, previous, cost, estimate
+    static final long COMPACT_SEGMENT = object(1, 3); // previous, latest, cost, estimate
+    static final long BOXED_INT = object(0, 1);
+    static final long ARRAY_SLOT = 2L * REFERENCE;
+    static final long HASH_ENTRY = object(3, 1) + ARRAY_SLOT; // HashMap.Node (hash, key, value, next) plus its table slot
+    static final long JPS_CELL = HASH_ENTRY + object(0, 2); // a checked cell by its coordinates, boxed as a long
+    static final long ARENA_NODE = 6 * 4; // SearchArena's parent, cost, estimate, stamp and position entries plus a heap slot
+    static final long IDA_FRAME = ARRAY_SLOT + 2 * 2 * 4 + HASH_ENTRY; // state, cost and edge cursor arrays plus the on-path set
+    static final long IDA_SEEN = HASH_ENTRY + object(0, 2); // a pass's cheapest cost and depth per state, as a boxed long
+    static final long SMA_ENTRY = object(4, 8) + 2 * intArray(4) // the entry with slots for four successors,
+            + object(5, 1) + HASH_ENTRY;                         // its TreeMap.Entry in the open set and its best map entry
+    static final long ARA_VISIT = object(2, 6) + HASH_ENTRY; // state, parent, estimate, cost, step, pass and flags
+    static final long ARA_QUEUED = object(1, 3) + ARRAY_SLOT; // a visit's cost and key in the priority queue
+
+    private MemoryLayout() { }
+
+    static long object(int references, int ints) {
+        return align(HEADER + (long) references * REFERENCE + ints * 4L);
+    }
+
+    static long intArray(int length) {
+        return align(HEADER + 4 + length * 4L);
+    }
+
+    static long longArray(int length) {
+        return align(HEADER + 4 + length * 8L);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    // falls back to the HotSpot default on VMs without the diagnostic bean
+    private static String vmOption(String name, String fallback) {
+        try {
+            return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption(name).getValue();
+        } catch (RuntimeException | LinkageError e) {
+            return fallback;
+        }
+    }
+}
@@ -2,12 +2,18 @@ package pathfinder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Node {
     private String name;
     private int x;
     private int y;
     private List<Connection> adjacent;
+    private Node component = this; // union-find parent, the root stands for every node ever connected to it
+    private int componentSize = 1;  // only meaningful on a root
+    private long componentVersion;  // only meaningful on a root, the graph version its component last changed at
+    private volatile JumpPointSearch.Component jumpPoints; // only meaningful on a root, see JumpPointSearch
+    private static final AtomicLong graphVersion = new AtomicLong(); // bumped on every topology change
 
     public static record Connection(Node node, int weight) { }
 
@@ -24,9 +30,102 @@ public class Node {
         this.adjacent = new ArrayList<>();
     }
 
+    // not safe while searches run over the graph, a VersionedGraph is for graphs edited under search
     public void addAdjacent(Node node, int weight) {
         this.adjacent.add(new Connection(node, weight));
         node.getAdjacent().add(new Connection(this, weight));
+        union(this, node);
+        changed();
+    }
+
+    // false only when no path between the two can exist, O(1) amortised. removing edges never splits a
+    // component here, so true just means they were connected at some point
+    public boolean mayReach(Node other) {
+        return root() == other.root();
+    }
+
+    // path halving: every step points a node at its grandparent. searches call this concurrently, but every
+    // write only ever replaces an ancestor with a higher one, so racing readers still end up at the root
+    private Node root() {
+        var node = this;
+        while (node.component != node) {
+            node.component = node.component.component;
+            node = node.component;
+        }
+
+        return node;
+    }
+
+    // union by size keeps the trees shallow
+    private static void union(Node a, Node b) {
+        var rootA = a.root();
+        var rootB = b.root();
+        if (rootA == rootB) return;
+
+        if (rootA.componentSize < rootB.componentSize) {
+            var swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+
+        rootB.component = rootA;
+        rootA.componentSize += rootB.componentSize;
+        rootB.jumpPoints = null; // only a root's is ever read
+    }
+
+    // every change gets a new graph version, and stamps it on the changed component's root
+    private void changed() {
+        root().componentVersion = graphVersion.incrementAndGet();
+    }
+
+    // changes the weight of every connection between this node and node, in both directions
+    // false (and no change) when the two aren't adjacent
+    public boolean updateAdjacent(Node node, int weight) {
+        if (!replaceConnections(node, weight)) return false;
+
+        node.replaceConnections(this, weight);
+        changed();
+        return true;
+    }
+
+    // false when the two weren't adjacent to begin with
+    public boolean removeAdjacent(Node node) {
+        if (!adjacent.removeIf(connection -> connection.node() == node)) return false;
+
+        node.getAdjacent().removeIf(connection -> connection.node() == this);
+        changed();
+        return true;
+    }
+
+    private boolean replaceConnections(Node node, int weight) {
+        var found = false;
+
+        for (var connections = adjacent.listIterator(); connections.hasNext(); ) {
+            if (connections.next().node() == node) {
+                connections.set(new Connection(node, weight));
+                found = true;
+            }
+        }
+
+        return found;
+    }
+
+    public static long getGraphVersion() {
+        return graphVersion.get();
+    }
+
+    // like getGraphVersion, but only changes with the nodes this one is connected to
+    long getComponentVersion() {
+        return root().componentVersion;
+    }
+
+    // what JumpPointSearch found checking this node's component, kept on its root so it goes when the graph does
+    JumpPointSearch.Component getJumpPoints() {
+        return root().jumpPoints;
+    }
+
+    void setJumpPoints(JumpPointSearch.Component jumpPoints) {
+        root().jumpPoints = jumpPoints;
     }
 
     public int getX() {
@@ -0,0 +1,87 @@
+package pathfinder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static pathfinder.Pathfinder.*;
+
+// bounded LRU cache of complete paths, emptied whenever Node.getGraphVersion() moves on
+public class PathCache {
+    public static record Key(Node start, Node goal, PathStrategy strategy, Heuristic heuristic, boolean bidirectional) { }
+
+    private final LinkedHashMap<Key, PathSegment> entries;
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public PathCache(int capacity) {
+        if (capacity <= 0)
+            throw new PathfindingException("Cache capacity must be greater than 0");
+
+        this.version = Node.getGraphVersion();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PathSegment> eldest) {
+                if (size() <= capacity) return false;
+
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    public synchronized PathSegment get(Key key) {
+        invalidateIfStale();
+
+        var segment = entries.get(key);
+        if (segment == null) misses++;
+        else hits++;
+
+        return segment;
+    }
+
+    // graphVersion is the version the path was computed against, stale results are dropped
+    public synchronized void put(Key key, PathSegment segment, long graphVersion) {
+        invalidateIfStale();
+
+        if (graphVersion == version)
+            entries.put(key, segment);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidationCount() {
+        return invalidations;
+    }
+
+    private void invalidateIfStale() {
+        var current = Node.getGraphVersion();
+        if (current == version) return;
+
+        version = current;
+        if (entries.isEmpty()) return;
+
+        entries.clear();
+        invalidations++;
+    }
+}
@@ -0,0 +1,82 @@
+package pathfinder;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.BiPredicate;
+
+import static pathfinder.Pathfinder.*;
+
+// read-only start-to-goal list over a finished search's PathSegment chain, built by walking the chain once.
+// indexing is O(1) and stream() is lazy, skip and smooth return new views without touching this one
+public final class PathView extends AbstractList<Node> implements RandomAccess {
+    private final Node[] nodes;
+
+    private PathView(Node[] nodes) {
+        this.nodes = nodes;
+    }
+
+    // the chain runs goal to start, so it's counted first and then filled in from the back
+    public static PathView of(PathSegment endSegment) {
+        var length = 0;
+        for (var segment = endSegment; segment != null; segment = segment.previous())
+            length++;
+
+        var nodes = new Node[length];
+        for (var segment = endSegment; segment != null; segment = segment.previous())
+            nodes[--length] = segment.latest();
+
+        return new PathView(nodes);
+    }
+
+    @Override
+    public Node get(int index) {
+        return nodes[index];
+    }
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(nodes, nodes.length, Object[].class);
+    }
+
+    // every (skipInterval + 1)th node, see Pathfinder.skipSteps. start and goal always stay
+    public PathView skip(int skipInterval) {
+        if (skipInterval <= 0 || nodes.length <= 2) return this;
+
+        var stride = skipInterval + 1;
+        var last = nodes.length - 1;
+        var result = new Node[last / stride + (last % stride == 0 ? 1 : 2)];
+
+        for (int i = 0; i * stride < last; i++)
+            result[i] = nodes[i * stride];
+
+        result[result.length - 1] = nodes[last];
+        return new PathView(result);
+    }
+
+    // string pulling: drops every node the walker could skip by heading straight for a later one it can see,
+    // e.g. with a raycast over the map's walls. one visibility test per node, so O(n) tests overall
+    public PathView smooth(BiPredicate<Node, Node> lineOfSight) {
+        if (nodes.length <= 2) return this;
+
+        var result = new Node[nodes.length];
+        var count = 0;
+        var anchor = nodes[0];
+        result[count++] = anchor;
+
+        for (int i = 2; i < nodes.length; i++) {
+            if (!lineOfSight.test(anchor, nodes[i])) {
+                anchor = nodes[i - 1];
+                result[count++] = anchor;
+            }
+        }
+
+        result[count++] = nodes[nodes.length - 1];
+        return count == nodes.length ? this : new PathView(Arrays.copyOf(result, count));
+    }
+}
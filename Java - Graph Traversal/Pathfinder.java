@@ -1,43 +1,53 @@
 package pathfinder;
 
-import sun.misc.Unsafe;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.function.BiPredicate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static pathfinder.Node.*;
 import static pathfinder.QueryableCollection.*;
+import static pathfinder.SearchStatistics.StopReason;
 
 public class Pathfinder {
 
-    private PathStrategy strategy;
-    private ExecutorService executor;
-    private static long segmentBytes;
-    private static Unsafe unsafe; // access to the Unsafe singleton
-    private static Pathfinder instance; // the Pathfinder singleton
+    // options used by the overloads that don't take any, searches never read shared mutable state past this
+    private final AtomicReference<SearchOptions> defaults = new AtomicReference<>(SearchOptions.of(null));
+    private volatile PathCache cache;
+    private volatile Executor executor;
+    private final Executor defaultExecutor;
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
 
     private Pathfinder() {
-        executor = Executors.newCachedThreadPool();
+        defaultExecutor = executor = defaultExecutor();
     }
 
-    public static Pathfinder getInstance() {
-        if (instance == null)
-            instance = new Pathfinder();
-
-        if (unsafe == null) {
-            unsafe = getUnsafe();
-            segmentBytes = estimateSizeOfSegment();
-        }
+    // initialized on first use by the class loader, which also publishes it safely to every thread
+    private static class Holder {
+        private static final Pathfinder instance = new Pathfinder(); // the Pathfinder singleton
+    }
 
-        return instance;
+    public static Pathfinder getInstance() {
+        return Holder.instance;
     }
 
+    // JumpPoint only differs from Optimal on uniform-cost 4/8-connected grid graphs, see JumpPointSearch.
+    // IterativeDeepening and MemoryBounded find Optimal's path while holding no more nodes than the node and
+    // memory limits allow, at the cost of expanding nodes more than once, see MemoryBoundedSearch.
+    // Anytime finds a complete path fast and improves it until a limit fires, see AnytimeSearch
     public enum PathStrategy {
-        Depth, Breadth, Optimal, Uniform, Greedy
+        Depth, Breadth, Optimal, Uniform, Greedy, JumpPoint, IterativeDeepening, MemoryBounded, Anytime
     }
 
     public static record PathSegment(Node latest, PathSegment previous, int cost, int estimate) implements Comparable<PathSegment> {
@@ -47,6 +57,9 @@ public class Pathfinder {
         }
     }
 
+    // PathSegment counterpart for depth and breadth-first GraphView searches, which only deal in node ids
+    private static record CompactSegment(int latest, CompactSegment previous, int cost, int estimate) { }
+
     public static class PathfindingException extends RuntimeException {
         public PathfindingException(String message) {
             super(message);
@@ -57,79 +70,458 @@ public class Pathfinder {
         }
     }
 
+    // the setters only change the defaults, queries already running (or submitted) keep the options they started with
     public void setStrategy(PathStrategy strategy) {
-        this.strategy = strategy;
+        defaults.updateAndGet(options -> options.withStrategy(strategy));
+    }
+
+    // null restores the default Manhattan distance
+    public void setHeuristic(Heuristic heuristic) {
+        defaults.updateAndGet(options -> options.withHeuristic(heuristic));
+    }
+
+    // null disables caching, CompactGraph searches are never cached
+    public void setCache(PathCache cache) {
+        this.cache = cache;
+    }
+
+    // only affects the Optimal and Uniform strategies on Node graphs
+    public void setBidirectional(boolean bidirectional) {
+        defaults.updateAndGet(options -> options.withBidirectional(bidirectional));
+    }
+
+    // null restores the default pool, one daemon thread per core. On JDK 21+ Executors.newVirtualThreadPerTaskExecutor()
+    // can be passed here instead. Async queries use whichever executor was set when they were submitted
+    public void setExecutor(Executor executor) {
+        this.executor = executor == null ? defaultExecutor : executor;
+    }
+
+    // null stops reporting
+    public void setListener(SearchListener listener) {
+        defaults.updateAndGet(options -> options.withListener(listener));
+    }
+
+    public SearchOptions getDefaults() {
+        return defaults.get();
     }
 
     public PathSegment traverse(Node start, Node goal) {
-        return handleTraversal(start, goal, (open, closed) -> true);
+        return handleTraversal(start, goal, defaults.get(), NOT_CANCELLED);
+    }
+
+    public PathSegment traverse(CompactGraph graph, int start, int goal) {
+        return handleTraversal(graph, start, goal, defaults.get(), NOT_CANCELLED);
+    }
+
+    public PathSegment traverse(Node start, Node goal, SearchOptions options) {
+        return handleTraversal(start, goal, options, NOT_CANCELLED);
+    }
+
+    public PathSegment traverse(CompactGraph graph, int start, int goal, SearchOptions options) {
+        return handleTraversal(graph, start, goal, options, NOT_CANCELLED);
     }
 
     public PathSegment traverseTimeLimit(Node start, Node goal, long msLimit) {
+        return traverseTimeLimit(start, goal, msLimit, defaults.get(), NOT_CANCELLED);
+    }
+
+    public PathSegment traverseTimeLimit(CompactGraph graph, int start, int goal, long msLimit) {
+        return traverseTimeLimit(graph, start, goal, msLimit, defaults.get(), NOT_CANCELLED);
+    }
+
+    public PathSegment traverseNodeLimit(Node start, Node goal, int visitLimit) {
+        return traverseNodeLimit(start, goal, visitLimit, defaults.get(), NOT_CANCELLED);
+    }
+
+    public PathSegment traverseNodeLimit(CompactGraph graph, int start, int goal, int visitLimit) {
+        return traverseNodeLimit(graph, start, goal, visitLimit, defaults.get(), NOT_CANCELLED);
+    }
+
+    public PathSegment traverseMemoryLimit(Node start, Node goal, long byteLimit) {
+        return traverseMemoryLimit(start, goal, byteLimit, defaults.get(), NOT_CANCELLED);
+    }
+
+    public PathSegment traverseMemoryLimit(CompactGraph graph, int start, int goal, long byteLimit) {
+        return traverseMemoryLimit(graph, start, goal, byteLimit, defaults.get(), NOT_CANCELLED);
+    }
+
+    // searches whichever snapshot is current, edits made meanwhile go into later versions
+    public PathSegment traverse(VersionedGraph graph, int start, int goal) {
+        return traverse(graph, start, goal, defaults.get());
+    }
+
+    public PathSegment traverse(VersionedGraph graph, int start, int goal, SearchOptions options) {
+        return handleTraversal(GraphView.of(graph.snapshot()), start, goal, options, NOT_CANCELLED);
+    }
+
+    // raw positions are snapped to the index's nearest nodes first, over its CompactGraph when it has one
+    public PathSegment traverse(SpatialIndex index, int startX, int startY, int goalX, int goalY) {
+        return traverse(index, startX, startY, goalX, goalY, defaults.get());
+    }
+
+    public PathSegment traverse(SpatialIndex index, int startX, int startY, int goalX, int goalY, SearchOptions options) {
+        if (index.size() == 0)
+            throw new PathfindingException("Cannot snap coordinates to an empty spatial index.");
+
+        var start = index.nearestId(startX, startY);
+        var goal = index.nearestId(goalX, goalY);
+        return index.getGraph() != null
+                ? handleTraversal(index.getGraph(), start, goal, options, NOT_CANCELLED)
+                : handleTraversal(index.node(start), index.node(goal), options, NOT_CANCELLED);
+    }
+
+    // the nearest of several goals in one search instead of one per goal, nearest by the strategy's own measure.
+    // goals match by coordinates like a single goal does
+    public PathSegment traverseNearest(Node start, Collection<Node> goals) {
+        return traverseNearest(start, goals, defaults.get());
+    }
+
+    public PathSegment traverseNearest(Node start, Collection<Node> goals, SearchOptions options) {
+        var result = traverseNearest(start, goals, 1, options);
+        return result.isEmpty() ? new PathSegment(start, null, 0, 0) : result.get(0);
+    }
+
+    // the first k goals the search reaches, which for Optimal and Uniform are the k nearest, nearest first.
+    // fewer when the rest can't be reached or a limit fires first
+    public List<PathSegment> traverseNearest(Node start, Collection<Node> goals, int k, SearchOptions options) {
+        if (goals.isEmpty())
+            throw new PathfindingException(String.format("No goals given for the search from %s.", start));
+
+        var targets = goals.stream().filter(goal -> !unreachable(start, goal)).toArray(Node[]::new);
+        if (targets.length == 0)
+            return new ArrayList<>();
+
+        var coordinates = new HashSet<Long>();
+        for (var goal : targets)
+            coordinates.add(coordinates(goal));
+
+        return handleNearestTraversal(start, node -> coordinates.contains(coordinates(node)), node -> {
+            var estimate = Integer.MAX_VALUE;
+            for (var goal : targets)
+                estimate = Math.min(estimate, estimate(options, node, goal));
+
+            return estimate;
+        }, Math.min(k, coordinates.size()), options);
+    }
+
+    // goals only known by a test can't be estimated, so Optimal runs as Uniform would and Greedy loses its guidance
+    public PathSegment traverseNearest(Node start, Predicate<Node> goal, SearchOptions options) {
+        var result = traverseNearest(start, goal, 1, options);
+        return result.isEmpty() ? new PathSegment(start, null, 0, 0) : result.get(0);
+    }
+
+    public List<PathSegment> traverseNearest(Node start, Predicate<Node> goal, int k, SearchOptions options) {
+        return handleNearestTraversal(start, goal, node -> 0, k, options);
+    }
+
+    private PathSegment traverseTimeLimit(Node start, Node goal, long msLimit, SearchOptions options, BooleanSupplier cancelled) {
         if (msLimit <= 0)
             throw new PathfindingException(start, goal, "Time limit must be greater than 0");
 
-        long now = System.currentTimeMillis(), end = now + msLimit;
-        return handleTraversal(start, goal, (open, closed) -> System.currentTimeMillis() < end);
+        return handleTraversal(start, goal, options.withTimeLimit(msLimit), cancelled);
     }
 
-    public PathSegment traverseNodeLimit(Node start, Node goal, int visitLimit) {
+    private PathSegment traverseTimeLimit(CompactGraph graph, int start, int goal, long msLimit, SearchOptions options, BooleanSupplier cancelled) {
+        if (msLimit <= 0)
+            throw new PathfindingException(graph.node(start), graph.node(goal), "Time limit must be greater than 0");
+
+        return handleTraversal(graph, start, goal, options.withTimeLimit(msLimit), cancelled);
+    }
+
+    private PathSegment traverseNodeLimit(Node start, Node goal, int visitLimit, SearchOptions options, BooleanSupplier cancelled) {
         if (visitLimit <= 0)
             throw new PathfindingException(start, goal, "Node limit must be greater than 0");
 
-        return handleTraversal(start, goal, (open, closed) -> closed.size() < visitLimit);
+        return handleTraversal(start, goal, options.withNodeLimit(visitLimit), cancelled);
     }
 
-    public PathSegment traverseMemoryLimit(Node start, Node goal, long byteLimit) {
+    private PathSegment traverseNodeLimit(CompactGraph graph, int start, int goal, int visitLimit, SearchOptions options, BooleanSupplier cancelled) {
+        if (visitLimit <= 0)
+            throw new PathfindingException(graph.node(start), graph.node(goal), "Node limit must be greater than 0");
+
+        return handleTraversal(graph, start, goal, options.withNodeLimit(visitLimit), cancelled);
+    }
+
+    private PathSegment traverseMemoryLimit(Node start, Node goal, long byteLimit, SearchOptions options, BooleanSupplier cancelled) {
         if (byteLimit <= 0)
             throw new PathfindingException(start, goal, "Memory limit must be greater than 0");
 
-        return handleTraversal(start, goal, (open, closed) -> (open.size() + closed.size()) * segmentBytes < byteLimit);
+        return handleTraversal(start, goal, options.withMemoryLimit(byteLimit), cancelled);
+    }
+
+    private PathSegment traverseMemoryLimit(CompactGraph graph, int start, int goal, long byteLimit, SearchOptions options, BooleanSupplier cancelled) {
+        if (byteLimit <= 0)
+            throw new PathfindingException(graph.node(start), graph.node(goal), "Memory limit must be greater than 0");
+
+        return handleTraversal(graph, start, goal, options.withMemoryLimit(byteLimit), cancelled);
+    }
+
+    // options are captured on the calling thread, so a later setter can't change a query that is still queued
+    public CompletableFuture<PathSegment> asyncTraverse(Node start, Node goal) {
+        return asyncTraverse(start, goal, defaults.get());
     }
 
-    public Future<PathSegment> asyncTraverse(Node start, Node goal) {
-        return executor.submit(() -> traverse(start, goal));
+    public CompletableFuture<PathSegment> asyncTraverse(Node start, Node goal, SearchOptions options) {
+        return submit(cancelled -> handleTraversal(start, goal, options, cancelled));
     }
 
-    public Future<PathSegment> asyncTraverseTimeLimit(Node start, Node goal, long msLimit) {
-        return executor.submit(() -> traverseTimeLimit(start, goal, msLimit));
+    public CompletableFuture<PathSegment> asyncTraverseTimeLimit(Node start, Node goal, long msLimit) {
+        var options = defaults.get();
+        return submit(cancelled -> traverseTimeLimit(start, goal, msLimit, options, cancelled));
     }
 
-    public Future<PathSegment> asyncTraverseNodeLimit(Node start, Node goal, int visitLimit) {
-        return executor.submit(() -> traverseNodeLimit(start, goal, visitLimit));
+    public CompletableFuture<PathSegment> asyncTraverseNodeLimit(Node start, Node goal, int visitLimit) {
+        var options = defaults.get();
+        return submit(cancelled -> traverseNodeLimit(start, goal, visitLimit, options, cancelled));
     }
 
-    public Future<PathSegment> asyncTraverseMemoryLimit(Node start, Node goal, long byteLimit) {
-        return executor.submit(() -> traverseMemoryLimit(start, goal, byteLimit));
+    public CompletableFuture<PathSegment> asyncTraverseMemoryLimit(Node start, Node goal, long byteLimit) {
+        var options = defaults.get();
+        return submit(cancelled -> traverseMemoryLimit(start, goal, byteLimit, options, cancelled));
+    }
+
+    public CompletableFuture<PathSegment> asyncTraverse(CompactGraph graph, int start, int goal) {
+        return asyncTraverse(graph, start, goal, defaults.get());
+    }
+
+    public CompletableFuture<PathSegment> asyncTraverse(CompactGraph graph, int start, int goal, SearchOptions options) {
+        return submit(cancelled -> handleTraversal(graph, start, goal, options, cancelled));
+    }
+
+    public CompletableFuture<PathSegment> asyncTraverseTimeLimit(CompactGraph graph, int start, int goal, long msLimit) {
+        var options = defaults.get();
+        return submit(cancelled -> traverseTimeLimit(graph, start, goal, msLimit, options, cancelled));
+    }
+
+    public CompletableFuture<PathSegment> asyncTraverseNodeLimit(CompactGraph graph, int start, int goal, int visitLimit) {
+        var options = defaults.get();
+        return submit(cancelled -> traverseNodeLimit(graph, start, goal, visitLimit, options, cancelled));
+    }
+
+    public CompletableFuture<PathSegment> asyncTraverseMemoryLimit(CompactGraph graph, int start, int goal, long byteLimit) {
+        var options = defaults.get();
+        return submit(cancelled -> traverseMemoryLimit(graph, start, goal, byteLimit, options, cancelled));
+    }
+
+    public CompletableFuture<PathSegment> asyncTraverse(VersionedGraph graph, int start, int goal) {
+        return asyncTraverse(graph, start, goal, defaults.get());
+    }
+
+    // the snapshot is pinned when the search is asked for, not when a worker gets to it
+    public CompletableFuture<PathSegment> asyncTraverse(VersionedGraph graph, int start, int goal, SearchOptions options) {
+        var snapshot = graph.snapshot();
+        return submit(cancelled -> handleTraversal(GraphView.of(snapshot), start, goal, options, cancelled));
+    }
+
+    // the search polls the future between expansions, so cancel(), completeExceptionally() or orTimeout() on it
+    // stops the search at its next check instead of letting it run to the end
+    private CompletableFuture<PathSegment> submit(Function<BooleanSupplier, PathSegment> search) {
+        var future = new CompletableFuture<PathSegment>();
+
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) return;
+
+                try {
+                    future.complete(search.apply(future::isDone));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    // bounded so bursts of queries queue up instead of spawning a thread each, daemon so it never keeps the JVM alive
+    private static Executor defaultExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+            var thread = new Thread(task, "pathfinder-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // the k cheapest loopless paths from start to goal by edge weight (whatever the strategy), cheapest first.
+    // fewer when the graph doesn't have k, see KShortestPaths
+    public List<PathSegment> kShortestPaths(Node start, Node goal, int k) {
+        return kShortestPaths(start, goal, k, Integer.MAX_VALUE);
+    }
+
+    // only paths costing at most maxCost, the search stops as soon as no cheaper one can be left
+    public List<PathSegment> kShortestPaths(Node start, Node goal, int k, int maxCost) {
+        if (k <= 0)
+            throw new PathfindingException(start, goal, "Path count must be greater than 0");
+        if (maxCost < 0)
+            throw new PathfindingException(start, goal, "Maximum cost cannot be negative");
+
+        return start.mayReach(goal) ? KShortestPaths.search(start, goal, k, maxCost) : new ArrayList<>();
+    }
+
+    // one shortest path tree per source (always by edge weight, whatever the strategy), sources spread over the common pool.
+    // targets are matched by coordinates like traverse's goals, so the first node settled on a target's position counts
+    public DistanceMatrix distanceMatrix(List<Node> sources, List<Node> targets, boolean withPaths) {
+        var costs = new int[sources.size()][targets.size()];
+        var paths = withPaths ? new PathSegment[sources.size()][targets.size()] : null;
+        var columns = new HashMap<Long, List<Integer>>();
+
+        for (int i = 0; i < targets.size(); i++)
+            columns.computeIfAbsent(coordinates(targets.get(i)), target -> new ArrayList<>()).add(i);
+
+        ForkJoinPool.commonPool().invoke(new MatrixTask(sources, columns, costs, paths, 0, sources.size()));
+        return new DistanceMatrix(List.copyOf(sources), List.copyOf(targets), costs, paths);
+    }
+
+    private static class MatrixTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Node> sources;
+        private final Map<Long, List<Integer>> columns;
+        private final int[][] costs;
+        private final PathSegment[][] paths;
+        private final int from;
+        private final int to;
+
+        MatrixTask(List<Node> sources, Map<Long, List<Integer>> columns, int[][] costs, PathSegment[][] paths, int from, int to) {
+            this.sources = sources;
+            this.columns = columns;
+            this.costs = costs;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) fillRow(from);
+                return;
+            }
+
+            var middle = (from + to) >>> 1;
+            invokeAll(new MatrixTask(sources, columns, costs, paths, from, middle),
+                    new MatrixTask(sources, columns, costs, paths, middle, to));
+        }
+
+        // Dijkstra from one source, stopping as soon as every target is settled
+        private void fillRow(int row) {
+            Arrays.fill(costs[row], -1);
+
+            var open = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+            var closed = new HashSet<Node>();
+            var remaining = new HashSet<>(columns.keySet());
+
+            open.add(new PathSegment(sources.get(row), null, 0, 0));
+
+            while (open.size() > 0 && !remaining.isEmpty()) {
+                var segment = open.remove();
+                var node = segment.latest();
+                closed.add(node);
+
+                var position = coordinates(node);
+                if (remaining.remove(position)) {
+                    for (var column : columns.get(position)) {
+                        costs[row][column] = segment.cost();
+                        if (paths != null) paths[row][column] = segment;
+                    }
+                }
+
+                for (var adjacent : node.getAdjacent())
+                    if (!closed.contains(adjacent.node()))
+                        open.add(new PathSegment(adjacent.node(), segment, segment.cost() + adjacent.weight(), 0));
+            }
+        }
     }
 
     private PathSegment handleTraversal(
             Node start,
             Node goal,
-            BiPredicate<QueryableCollection<PathSegment>, HashSet<Node>> limitFunction
+            SearchOptions options,
+            BooleanSupplier cancelled
     ) {
-        if (strategy == null)
-            throw new PathfindingException(start, goal, "Path strategy cannot be null. Use setStrategy()");
+        if (options.strategy() == null)
+            throw new PathfindingException(start, goal, "Path strategy cannot be null. Use setStrategy() or SearchOptions");
+
+        var monitor = new SearchMonitor(options, cancelled);
+        var cache = this.cache;
+        if (cache == null)
+            return search(start, goal, options, monitor);
+
+        var key = new PathCache.Key(start, goal, options.strategy(), options.heuristic(), options.bidirectional());
+        var cached = cache.get(key);
+        if (cached != null) {
+            monitor.report(() -> start, () -> goal, StopReason.Cached);
+            return cached;
+        }
 
-        var open = instantiateCollection();
-        var closed = new HashSet<Node>();
+        // only complete paths are cached, a truncated one would be wrong for the next caller,
+        // and so would an Anytime path a limit cut off before it was proven optimal
+        var version = Node.getGraphVersion();
+        var result = search(start, goal, options, monitor);
+        if (result.latest().matches(goal) && (options.strategy() != PathStrategy.Anytime || monitor.suboptimality(StopReason.Goal) == 1))
+            cache.put(key, result, version);
+
+        return result;
+    }
+
+    private static PathSegment search(Node start, Node goal, SearchOptions options, SearchMonitor monitor) {
+        if (unreachable(start, goal)) {
+            monitor.report(() -> start, () -> goal, StopReason.Exhausted);
+            return new PathSegment(start, null, 0, 0);
+        }
 
-        open.add(new PathSegment(start, null, 0, estimate(start, goal)));
+        try {
+            var result = searchUnmonitored(start, goal, options, monitor);
+            monitor.report(() -> start, () -> goal, result.latest().matches(goal) ? StopReason.Goal : StopReason.Exhausted);
+            return result;
+        } catch (CancellationException e) {
+            monitor.report(() -> start, () -> goal, StopReason.Cancelled);
+            throw e;
+        }
+    }
+
+    private static PathSegment searchUnmonitored(Node start, Node goal, SearchOptions options, SearchMonitor monitor) {
+        var strategy = options.strategy();
+        // the backward half starts from the goal's own edges, so it finds the way to that node, not to whichever node
+        // on its coordinates is nearest (see SearchOptions.withBidirectional). a goal without edges may just be a
+        // position to match (see Node.matches), so that one is searched for from the start alone
+        if (options.bidirectional() && (strategy == PathStrategy.Optimal || strategy == PathStrategy.Uniform) && !goal.getAdjacent().isEmpty())
+            return handleBidirectionalTraversal(start, goal, options, monitor);
+
+        if (strategy == PathStrategy.JumpPoint) {
+            var result = JumpPointSearch.traverse(start, goal, monitor);
+            if (result != null) return result;
+        }
+
+        if (strategy == PathStrategy.IterativeDeepening || strategy == PathStrategy.MemoryBounded)
+            return new MemoryBoundedSearch<>(SearchSpace.over(goal, options)).traverse(start, options, monitor);
+
+        if (strategy == PathStrategy.Anytime)
+            return new AnytimeSearch<>(SearchSpace.over(goal, options)).traverse(start, monitor);
+
+        var open = instantiateCollection(options);
+        var closed = new HashSet<Node>();
+        var bytes = addOpen(open, new PathSegment(start, null, 0, estimate(options, start, goal)), MemoryLayout.PATH_SEGMENT);
 
         while (open.size() > 0) {
             var segment = open.remove();
             var node = segment.latest();
 
             // return complete or closest solution
-            if (!limitFunction.test(open, closed) || node.matches(goal))
+            if (!monitor.test(open.size(), closed.size(), bytes) || node.matches(goal))
                 return segment;
 
-            closed.add(node);
+            if (closed.add(node))
+                bytes += MemoryLayout.HASH_ENTRY;
 
             for (var adjacent : node.getAdjacent()) {
                 var next = adjacent.node();
-                if (!closed.contains(next))
-                    open.add(new PathSegment(next, segment, cost(segment, adjacent), estimate(next, goal)));
+                if (!closed.contains(next)) {
+                    monitor.relax();
+                    bytes += addOpen(open, new PathSegment(next, segment, cost(options, segment.cost(), adjacent.weight()), estimate(options, next, goal)), MemoryLayout.PATH_SEGMENT);
+                }
             }
         }
 
@@ -137,20 +529,307 @@ public class Pathfinder {
         return new PathSegment(start, null, 0, 0);
     }
 
-    // utility method for easier consumption
-    public static List<Node> toList(PathSegment endSegment) {
-        var list = new ArrayList<Node>();
+    // one search towards every goal at once. the estimate is the smallest over all goals, still a lower bound
+    // (and still consistent) since whichever goal turns out nearest is among them. goals are expanded through,
+    // the next one may lie behind. bidirectional, JumpPoint, the memory-bounded and Anytime searches need a single
+    // goal, so they run as Optimal, with the node and memory limits as limits
+    private List<PathSegment> handleNearestTraversal(Node start, Predicate<Node> isGoal, ToIntFunction<Node> estimate, int k, SearchOptions options) {
+        if (options.strategy() == null)
+            throw new PathfindingException(String.format("Path strategy cannot be null. Use setStrategy() or SearchOptions (path from %s).", start));
+        if (k <= 0)
+            throw new PathfindingException(String.format("Goal count must be greater than 0 (path from %s).", start));
+
+        if (options.strategy() == PathStrategy.JumpPoint || options.strategy() == PathStrategy.IterativeDeepening
+                || options.strategy() == PathStrategy.MemoryBounded || options.strategy() == PathStrategy.Anytime)
+            options = options.withStrategy(PathStrategy.Optimal);
+
+        var monitor = new SearchMonitor(options, NOT_CANCELLED);
+        var open = instantiateCollection(options);
+        var closed = new HashSet<Node>();
+        var found = new ArrayList<PathSegment>();
+        var bytes = addOpen(open, new PathSegment(start, null, 0, estimate.applyAsInt(start)), MemoryLayout.PATH_SEGMENT);
+        var reason = StopReason.Exhausted;
+
+        while (open.size() > 0) {
+            var segment = open.remove();
+            var node = segment.latest();
+            if (closed.contains(node)) continue;
+
+            if (!monitor.test(open.size(), closed.size(), bytes)) break;
+
+            if (isGoal.test(node)) {
+                found.add(segment);
+                if (found.size() == k) {
+                    reason = StopReason.Goal;
+                    break;
+                }
+            }
+
+            closed.add(node);
+            bytes += MemoryLayout.HASH_ENTRY;
+
+            for (var adjacent : node.getAdjacent()) {
+                var next = adjacent.node();
+                if (!closed.contains(next)) {
+                    monitor.relax();
+                    bytes += addOpen(open, new PathSegment(next, segment, cost(options, segment.cost(), adjacent.weight()), estimate.applyAsInt(next)), MemoryLayout.PATH_SEGMENT);
+                }
+            }
+        }
+
+        // reported against the last goal reached, there is no single goal to name otherwise
+        var last = found.isEmpty() ? start : found.get(found.size() - 1).latest();
+        monitor.report(() -> start, () -> last, reason);
+        return found;
+    }
+
+    private static long coordinates(Node node) {
+        return (long) node.getX() << 32 | node.getY() & 0xffffffffL;
+    }
+
+    // runs a forward search from start and a backward search from goal (edges are symmetric), always
+    // expanding the smaller frontier, until no meeting point can beat the best path found so far.
+    // the goal is matched by identity, not coordinates: a node can't tell which others share its coordinates
+    private static PathSegment handleBidirectionalTraversal(Node start, Node goal, SearchOptions options, SearchMonitor monitor) {
+        if (start.matches(goal))
+            return new PathSegment(start, null, 0, 0);
+
+        var forward = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+        var backward = new QueryableIndexedHeap<PathSegment>(PathSegment::latest);
+        var forwardReached = new HashMap<Node, PathSegment>();
+        var backwardReached = new HashMap<Node, PathSegment>();
+        var forwardClosed = new HashSet<Node>();
+        var backwardClosed = new HashSet<Node>();
+
+        var first = new PathSegment(start, null, 0, estimate(options, start, goal));
+        var last = new PathSegment(goal, null, 0, estimate(options, goal, start));
+        var bytes = addOpen(forward, first, MemoryLayout.PATH_SEGMENT) + addOpen(backward, last, MemoryLayout.PATH_SEGMENT);
+        forwardReached.put(start, first);
+        backwardReached.put(goal, last);
+        bytes += 2 * MemoryLayout.HASH_ENTRY;
+
+        int best = Integer.MAX_VALUE;
+        PathSegment meetForward = null, meetBackward = null;
+
+        while (forward.size() > 0 && backward.size() > 0) {
+            if (best != Integer.MAX_VALUE && meetingBoundReached(options, forward.peek(), backward.peek(), best))
+                break;
+
+            // return complete or closest solution
+            if (!monitor.test(forward.size() + backward.size(), forwardClosed.size() + backwardClosed.size(), bytes))
+                return meetForward != null ? joinSegments(options, meetForward, meetBackward, goal) : forward.remove();
+
+            var expandForward = forward.size() <= backward.size();
+            var open = expandForward ? forward : backward;
+            var segment = open.remove();
+            var node = segment.latest();
+            var target = expandForward ? goal : start;
+            var closed = expandForward ? forwardClosed : backwardClosed;
+            var reached = expandForward ? forwardReached : backwardReached;
+            var opposite = expandForward ? backwardReached : forwardReached;
+
+            if (closed.add(node))
+                bytes += MemoryLayout.HASH_ENTRY;
+
+            for (var adjacent : node.getAdjacent()) {
+                var next = adjacent.node();
+                if (closed.contains(next)) continue;
+
+                monitor.relax();
+                var cost = cost(options, segment.cost(), adjacent.weight());
+                var known = reached.get(next);
+                if (known != null && known.cost() <= cost) continue;
+
+                var extended = new PathSegment(next, segment, cost, estimate(options, next, target));
+                bytes += addOpen(open, extended, MemoryLayout.PATH_SEGMENT);
+                if (reached.put(next, extended) == null)
+                    bytes += MemoryLayout.HASH_ENTRY;
+
+                var other = opposite.get(next);
+                if (other != null && cost + other.cost() < best) {
+                    best = cost + other.cost();
+                    meetForward = expandForward ? extended : other;
+                    meetBackward = expandForward ? other : extended;
+                }
+            }
+        }
+
+        // no solution, so don't move
+        return meetForward != null ? joinSegments(options, meetForward, meetBackward, goal) : new PathSegment(start, null, 0, 0);
+    }
+
+    // Uniform can stop once both frontiers together can't improve on the best path, while Optimal can stop
+    // once either frontier's lowest cost + estimate can't (symmetric bidirectional A*)
+    private static boolean meetingBoundReached(SearchOptions options, PathSegment forward, PathSegment backward, int best) {
+        return options.strategy() == PathStrategy.Uniform
+                ? forward.cost() + backward.cost() >= best
+                : Math.max(forward.cost() + forward.estimate(), backward.cost() + backward.estimate()) >= best;
+    }
+
+    // forward ends at the meeting node, backward runs from the meeting node back to the goal
+    private static PathSegment joinSegments(SearchOptions options, PathSegment forward, PathSegment backward, Node goal) {
+        var total = forward.cost() + backward.cost();
+        var result = forward;
+
+        for (var segment = backward.previous(); segment != null; segment = segment.previous())
+            result = new PathSegment(segment.latest(), result, total - segment.cost(), estimate(options, segment.latest(), goal));
+
+        return result;
+    }
+
+    // same search as above, over node ids and primitive arrays instead of Node objects
+    private PathSegment handleTraversal(CompactGraph graph, int start, int goal, SearchOptions options, BooleanSupplier cancelled) {
+        return handleTraversal(GraphView.of(graph), start, goal, options, cancelled);
+    }
+
+    private PathSegment handleTraversal(
+            GraphView graph,
+            int start,
+            int goal,
+            SearchOptions options,
+            BooleanSupplier cancelled
+    ) {
+        if (options.strategy() == null)
+            throw new PathfindingException(graph.node(start), graph.node(goal), "Path strategy cannot be null. Use setStrategy() or SearchOptions");
+
+        var monitor = new SearchMonitor(options, cancelled);
+        if (graph.unreachable(start, goal)) {
+            monitor.report(() -> graph.node(start), () -> graph.node(goal), StopReason.Exhausted);
+            return new PathSegment(graph.node(start), null, 0, 0);
+        }
+
+        try {
+            var result = switch (options.strategy()) {
+                case Depth, Breadth -> handleCompactTraversal(graph, start, goal, options, monitor);
+                case IterativeDeepening, MemoryBounded -> new MemoryBoundedSearch<>(SearchSpace.over(graph, goal, options)).traverse(start, options, monitor);
+                case Anytime -> new AnytimeSearch<>(SearchSpace.over(graph, goal, options)).traverse(start, monitor);
+                case Optimal, Uniform, Greedy, JumpPoint -> handleArenaTraversal(graph, start, goal, options, monitor);
+            };
+            monitor.report(() -> graph.node(start), () -> graph.node(goal),
+                    reachedGoal(graph, result, goal) ? StopReason.Goal : StopReason.Exhausted);
+            return result;
+        } catch (CancellationException e) {
+            monitor.report(() -> graph.node(start), () -> graph.node(goal), StopReason.Cancelled);
+            throw e;
+        }
+    }
 
-        do {
-            list.add(0, endSegment.latest());
-            endSegment = endSegment.previous();
-        } while (endSegment != null);
+    // a goal without connections may just be a position to match (see Node.matches) rather than a node of
+    // the graph, so only connected goals are ruled out
+    private static boolean unreachable(Node start, Node goal) {
+        return !goal.getAdjacent().isEmpty() && !start.matches(goal) && !start.mayReach(goal);
+    }
 
-        return list;
+    private static boolean reachedGoal(GraphView graph, PathSegment result, int goal) {
+        return result.latest().getX() == graph.x(goal) && result.latest().getY() == graph.y(goal);
+    }
+
+    private static PathSegment handleCompactTraversal(GraphView graph, int start, int goal, SearchOptions options, SearchMonitor monitor) {
+        var open = instantiateCompactCollection(options);
+        var closed = new BitSet(graph.size());
+        var closedCount = 0;
+        var bytes = MemoryLayout.object(1, 2) + MemoryLayout.longArray((graph.size() + 63) >>> 6)
+                + addOpen(open, new CompactSegment(start, null, 0, estimate(options, graph, start, goal)), MemoryLayout.COMPACT_SEGMENT);
+
+        while (open.size() > 0) {
+            var segment = open.remove();
+            var node = segment.latest();
+
+            // return complete or closest solution
+            if (!monitor.test(open.size(), closedCount, bytes) || graph.matches(node, goal))
+                return toPathSegment(graph, segment);
+
+            if (!closed.get(node)) {
+                closed.set(node);
+                closedCount++;
+            }
+
+            for (int edge = 0, degree = graph.degree(node); edge < degree; edge++) {
+                var next = graph.target(node, edge);
+                if (!closed.get(next)) {
+                    monitor.relax();
+                    bytes += addOpen(open, new CompactSegment(next, segment, cost(options, segment.cost(), graph.weight(node, edge)), estimate(options, graph, next, goal)), MemoryLayout.COMPACT_SEGMENT);
+                }
+            }
+        }
+
+        // no solution, so don't move
+        return new PathSegment(graph.node(start), null, 0, 0);
+    }
+
+    // best-first search keeps one entry per node, so its whole state fits in the calling thread's SearchArena
+    // and the returned path is the only thing a query allocates once the arena has grown to the graph's size
+    private static PathSegment handleArenaTraversal(GraphView graph, int start, int goal, SearchOptions options, SearchMonitor monitor) {
+        var arena = SearchArena.acquire(graph.size());
+
+        try {
+            arena.open(start, -1, 0, estimate(options, graph, start, goal));
+
+            while (arena.openSize() > 0) {
+                var node = arena.poll();
+
+                // return complete or closest solution
+                if (!monitor.test(arena.openSize(), arena.closedCount(), arena.touchedCount() * MemoryLayout.ARENA_NODE) || graph.matches(node, goal))
+                    return toPathSegment(graph, arena, node);
+
+                arena.close(node);
+
+                for (int edge = 0, degree = graph.degree(node); edge < degree; edge++) {
+                    var next = graph.target(node, edge);
+                    if (!arena.isClosed(next)) {
+                        monitor.relax();
+                        arena.open(next, node, cost(options, arena.cost(node), graph.weight(node, edge)), estimate(options, graph, next, goal));
+                    }
+                }
+            }
+
+            // no solution, so don't move
+            return new PathSegment(graph.node(start), null, 0, 0);
+        } finally {
+            arena.release();
+        }
+    }
+
+    // bytes the open collection grew by; a segment that was dropped or replaced an existing entry adds nothing that stays reachable
+    static <T> long addOpen(QueryableCollection<T> open, T segment, long segmentBytes) {
+        var size = open.size();
+        open.add(segment);
+        return open.size() > size ? segmentBytes + open.entryBytes() : 0;
+    }
+
+    private static PathSegment toPathSegment(GraphView graph, SearchArena arena, int endNode) {
+        PathSegment result = null;
+        for (int i = 0, length = arena.pathTo(endNode); i < length; i++) {
+            var node = arena.pathNode(i);
+            result = new PathSegment(graph.node(node), result, arena.cost(node), arena.estimate(node));
+        }
+
+        return result;
+    }
+
+    // only the final path is ever turned back into Node objects
+    private static PathSegment toPathSegment(GraphView graph, CompactSegment endSegment) {
+        var chain = new ArrayList<CompactSegment>();
+        for (var segment = endSegment; segment != null; segment = segment.previous())
+            chain.add(segment);
+
+        PathSegment result = null;
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            var segment = chain.get(i);
+            result = new PathSegment(graph.node(segment.latest()), result, segment.cost(), segment.estimate());
+        }
+
+        return result;
+    }
+
+    // utility method for easier consumption
+    // a mutable copy, PathView.of is the read-only view without it
+    public static List<Node> toList(PathSegment endSegment) {
+        return new ArrayList<>(PathView.of(endSegment));
     }
 
     public static List<Node> skipSteps(PathSegment endSegment, int skipInterval) {
-        return skipSteps(Pathfinder.toList(endSegment), skipInterval);
+        return new ArrayList<>(PathView.of(endSegment).skip(skipInterval));
     }
 
     // simulate faster movement speed by jumping ahead a skipInterval amount of nodes each step
@@ -164,48 +843,41 @@ public class Pathfinder {
                 .collect(Collectors.toList());
     }
 
-    private int cost(PathSegment segment, Connection connection) {
-        return strategy == PathStrategy.Optimal || strategy == PathStrategy.Uniform
-                ? segment.cost() + connection.weight()
+    private static int cost(SearchOptions options, int pathCost, int weight) {
+        var strategy = options.strategy();
+        return strategy == PathStrategy.Optimal || strategy == PathStrategy.Uniform || strategy == PathStrategy.JumpPoint
+                || strategy == PathStrategy.IterativeDeepening || strategy == PathStrategy.MemoryBounded
+                ? pathCost + weight
                 : 0;
     }
 
-    private int estimate(Node current, Node goal) {
-        return strategy == PathStrategy.Optimal || strategy == PathStrategy.Greedy
-                ? Math.abs(current.getX() - goal.getX()) + Math.abs(current.getY() - goal.getY())
+    private static int estimate(SearchOptions options, Node current, Node goal) {
+        var strategy = options.strategy();
+        return strategy == PathStrategy.Optimal || strategy == PathStrategy.Greedy || strategy == PathStrategy.JumpPoint
+                || strategy == PathStrategy.IterativeDeepening || strategy == PathStrategy.MemoryBounded
+                ? options.heuristic().estimate(current, goal)
                 : 0;
     }
 
-    private QueryableCollection<PathSegment> instantiateCollection() {
-        return switch (strategy) {
+    private static int estimate(SearchOptions options, GraphView graph, int current, int goal) {
+        var strategy = options.strategy();
+        return strategy == PathStrategy.Optimal || strategy == PathStrategy.Greedy || strategy == PathStrategy.JumpPoint
+                || strategy == PathStrategy.IterativeDeepening || strategy == PathStrategy.MemoryBounded
+                ? graph.estimate(options.heuristic(), current, goal)
+                : 0;
+    }
+
+    // best-first strategies keep a single open entry per node, decreasing its key when a cheaper path turns up
+    private static QueryableCollection<PathSegment> instantiateCollection(SearchOptions options) {
+        return switch (options.strategy()) {
             case Depth -> new QueryableStack<>();
             case Breadth -> new QueryableQueue<>();
-            case Optimal, Uniform, Greedy -> new QueryableSortedList<>();
+            case Optimal, Uniform, Greedy, JumpPoint, IterativeDeepening, MemoryBounded, Anytime -> new QueryableIndexedHeap<>(PathSegment::latest);
         };
     }
 
-    // fast worst-case scenario estimate
-    private static long estimateSizeOfSegment() {
-        var highestOffset = Arrays.asList(PathSegment.class.getDeclaredFields())
-                .stream()
-                .map(unsafe::objectFieldOffset)
-                .max(Comparator.comparingLong(value -> value))
-                .get();
-
-        // field is either a reference or an int, consider both to have a size of 8 bytes
-        var finalOffset = highestOffset + 8;
-
-        // pad to a multiple of 8
-        return finalOffset % 8 == 0 ? finalOffset : new Double(Math.ceil(finalOffset / 8d) * 8).longValue();
-    }
-
-    private static Unsafe getUnsafe() {
-        try {
-            var field = Unsafe.class.getDeclaredField("theUnsafe");
-            field.setAccessible(true);
-            return (Unsafe) field.get(Unsafe.class);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-           throw new PathfindingException("Failed to initialize Pathfinder (no access to Unsafe). "+e.getMessage());
-        }
+    // best-first strategies never get here on a GraphView, they run on a SearchArena instead
+    private static QueryableCollection<CompactSegment> instantiateCompactCollection(SearchOptions options) {
+        return options.strategy() == PathStrategy.Depth ? new QueryableStack<>() : new QueryableQueue<>();
     }
-}
\ No newline at end of file
+}
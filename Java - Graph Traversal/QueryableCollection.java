@@ -1,7 +1,11 @@
 package pathfinder;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 public interface QueryableCollection<T> {
     void add(T element);
@@ -9,6 +13,11 @@ public interface QueryableCollection<T> {
     boolean contains(T element);
     int size();
 
+    // bytes each element costs the collection itself, on top of the element
+    default long entryBytes() {
+        return MemoryLayout.ARRAY_SLOT;
+    }
+
     class QueryableStack<T> implements QueryableCollection<T> {
         private ArrayDeque<T> stack;
 
@@ -80,4 +89,129 @@ public interface QueryableCollection<T> {
             return queue.size();
         }
     }
+
+    // binary heap holding at most one element per key: adding a better element for a known key
+    // decreases it in place, adding a worse one is a no-op
+    class QueryableIndexedHeap<T extends Comparable<T>> implements QueryableCollection<T> {
+        private Object[] heap;
+        private int size;
+        private Function<T, ?> key;
+        private HashMap<Object, Integer> positions;
+        private ToIntFunction<T> intKey;
+        private int[] intPositions; // 1-based, so 0 means absent
+
+        public QueryableIndexedHeap(Function<T, ?> key) {
+            this.heap = new Object[16];
+            this.key = key;
+            this.positions = new HashMap<>();
+        }
+
+        // keys are ints in [0, keyCount), tracked in an array instead of a map
+        public QueryableIndexedHeap(ToIntFunction<T> key, int keyCount) {
+            this.heap = new Object[16];
+            this.intKey = key;
+            this.intPositions = new int[keyCount];
+        }
+
+        public void add(T element) {
+            var position = positionOf(element);
+
+            if (position < 0) {
+                if (size == heap.length)
+                    heap = Arrays.copyOf(heap, size * 2);
+
+                place(element, size++);
+                siftUp(size - 1);
+            } else if (element.compareTo(get(position)) < 0) {
+                place(element, position);
+                siftUp(position);
+            }
+        }
+
+        public T remove() {
+            var head = get(0);
+            forget(head);
+
+            var last = get(--size);
+            heap[size] = null;
+
+            if (size > 0) {
+                place(last, 0);
+                siftDown(0);
+            }
+
+            return head;
+        }
+
+        public T peek() {
+            return size == 0 ? null : get(0);
+        }
+
+        public boolean contains(T element) {
+            return positionOf(element) >= 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long entryBytes() {
+            return intPositions != null ? MemoryLayout.ARRAY_SLOT : MemoryLayout.ARRAY_SLOT + MemoryLayout.HASH_ENTRY + MemoryLayout.BOXED_INT;
+        }
+
+        private void siftUp(int position) {
+            var element = get(position);
+
+            while (position > 0) {
+                var parent = (position - 1) >>> 1;
+                if (element.compareTo(get(parent)) >= 0) break;
+
+                place(get(parent), position);
+                position = parent;
+            }
+
+            place(element, position);
+        }
+
+        private void siftDown(int position) {
+            var element = get(position);
+
+            while (true) {
+                var child = 2 * position + 1;
+                if (child >= size) break;
+                if (child + 1 < size && get(child + 1).compareTo(get(child)) < 0) child++;
+                if (element.compareTo(get(child)) <= 0) break;
+
+                place(get(child), position);
+                position = child;
+            }
+
+            place(element, position);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int position) {
+            return (T) heap[position];
+        }
+
+        private void place(T element, int position) {
+            heap[position] = element;
+
+            if (intPositions != null) intPositions[intKey.applyAsInt(element)] = position + 1;
+            else positions.put(key.apply(element), position);
+        }
+
+        private int positionOf(T element) {
+            if (intPositions != null) return intPositions[intKey.applyAsInt(element)] - 1;
+
+            var position = positions.get(key.apply(element));
+            return position == null ? -1 : position;
+        }
+
+        private void forget(T element) {
+            if (intPositions != null) intPositions[intKey.applyAsInt(element)] = 0;
+            else positions.remove(key.apply(element));
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package pathfinder;
+
+import java.util.Arrays;
+
+// reusable struct-of-arrays storage for best-first searches over a CompactGraph, one per thread.
+// every node's search state (parent, cost, estimate, heap position) lives in flat int arrays indexed by node id,
+// so expanding an edge allocates nothing. Per-node entries are reset lazily through a generation stamp and the
+// closed bitset is cleared word by word, so a query never walks the arrays node by node just to start.
+// the arrays only ever grow, to the largest graph searched on that thread
+final class SearchArena {
+    private static final ThreadLocal<SearchArena> arenas = ThreadLocal.withInitial(SearchArena::new);
+
+    private int[] parent = new int[0];
+    private int[] cost = new int[0];
+    private int[] estimate = new int[0];
+    private int[] stamp = new int[0]; // a node's entries are only valid while its stamp matches generation
+    private int[] position = new int[0]; // 1-based heap position, 0 when not on the heap
+    private long[] closed = new long[0];
+    private int[] heap = new int[16];
+    private int[] path = new int[16];
+    private int generation;
+    private int size;
+    private int closedCount;
+    private int touchedCount;
+    private boolean inUse;
+
+    private SearchArena() { }
+
+    // a heuristic that itself searches on the same thread gets a throwaway arena rather than corrupting this one
+    static SearchArena acquire(int nodeCount) {
+        var arena = arenas.get();
+        if (arena.inUse) arena = new SearchArena();
+
+        arena.reset(nodeCount);
+        arena.inUse = true;
+        return arena;
+    }
+
+    void release() {
+        inUse = false;
+    }
+
+    private void reset(int nodeCount) {
+        if (parent.length < nodeCount) {
+            var capacity = Math.max(nodeCount, parent.length + (parent.length >> 1));
+            parent = new int[capacity];
+            cost = new int[capacity];
+            estimate = new int[capacity];
+            stamp = new int[capacity];
+            position = new int[capacity];
+            closed = new long[(capacity + 63) >>> 6];
+            generation = 0;
+        }
+
+        if (++generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+
+        Arrays.fill(closed, 0, (nodeCount + 63) >>> 6, 0L);
+        size = 0;
+        closedCount = 0;
+        touchedCount = 0;
+    }
+
+    // same contract as QueryableIndexedHeap.add: inserts the node, or decreases its key if the new entry is better
+    void open(int node, int parentNode, int nodeCost, int nodeEstimate) {
+        if (stamp[node] != generation) {
+            stamp[node] = generation;
+            position[node] = 0;
+            touchedCount++;
+        } else if (position[node] == 0 || nodeCost + nodeEstimate >= cost[node] + estimate[node]) {
+            return;
+        }
+
+        parent[node] = parentNode;
+        cost[node] = nodeCost;
+        estimate[node] = nodeEstimate;
+
+        if (position[node] == 0) {
+            if (size == heap.length)
+                heap = Arrays.copyOf(heap, size * 2);
+
+            place(node, size++);
+        }
+
+        siftUp(position[node] - 1);
+    }
+
+    int poll() {
+        var head = heap[0];
+        position[head] = 0;
+
+        var last = heap[--size];
+        if (size > 0) {
+            place(last, 0);
+            siftDown(0);
+        }
+
+        return head;
+    }
+
+    int openSize() {
+        return size;
+    }
+
+    void close(int node) {
+        closed[node >>> 6] |= 1L << node;
+        closedCount++;
+    }
+
+    boolean isClosed(int node) {
+        return (closed[node >>> 6] & (1L << node)) != 0;
+    }
+
+    int closedCount() {
+        return closedCount;
+    }
+
+    // nodes this query has written entries for, which is the share of the arena it actually uses
+    int touchedCount() {
+        return touchedCount;
+    }
+
+    int parent(int node) {
+        return parent[node];
+    }
+
+    int cost(int node) {
+        return cost[node];
+    }
+
+    int estimate(int node) {
+        return estimate[node];
+    }
+
+    // node ids from the search's start to node, in a scratch buffer reused across queries; returns the length
+    int pathTo(int node) {
+        var length = 0;
+        for (int current = node; current >= 0; current = parent[current]) {
+            if (length == path.length)
+                path = Arrays.copyOf(path, length * 2);
+
+            path[length++] = current;
+        }
+
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            var swap = path[i];
+            path[i] = path[j];
+            path[j] = swap;
+        }
+
+        return length;
+    }
+
+    int pathNode(int index) {
+        return path[index];
+    }
+
+    private int key(int node) {
+        return cost[node] + estimate[node];
+    }
+
+    private void siftUp(int at) {
+        var node = heap[at];
+
+        while (at > 0) {
+            var up = (at - 1) >>> 1;
+            if (key(node) >= key(heap[up])) break;
+
+            place(heap[up], at);
+            at = up;
+        }
+
+        place(node, at);
+    }
+
+    private void siftDown(int at) {
+        var node = heap[at];
+
+        while (true) {
+            var child = 2 * at + 1;
+            if (child >= size) break;
+            if (child + 1 < size && key(heap[child + 1]) < key(heap[child])) child++;
+            if (key(node) <= key(heap[child])) break;
+
+            place(heap[child], at);
+            at = child;
+        }
+
+        place(node, at);
+    }
+
+    private void place(int node, int at) {
+        heap[at] = node;
+        position[node] = at + 1;
+    }
+}
@@ -0,0 +1,49 @@
+package pathfinder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR counterpart of SearchStatistics, its duration is the search's wall time.
+// enable with -XX:StartFlightRecording or a JFC with pathfinder.Search turned on
+@Name("pathfinder.Search")
+@Label("Path Search")
+@Category("Pathfinder")
+@Description("A single Pathfinder traversal")
+@StackTrace(false)
+class SearchEvent extends Event {
+    @Label("Start")
+    String start;
+
+    @Label("Goal")
+    String goal;
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Stop Reason")
+    String stopReason;
+
+    @Label("Expanded")
+    int expanded;
+
+    @Label("Peak Open Size")
+    int peakOpenSize;
+
+    @Label("Closed Size")
+    int closedSize;
+
+    @Label("Edges Relaxed")
+    long edgesRelaxed;
+
+    @Label("Search Memory")
+    @DataAmount
+    long bytes;
+
+    @Label("Suboptimality")
+    double suboptimality;
+}
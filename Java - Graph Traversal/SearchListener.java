@@ -0,0 +1,8 @@
+package pathfinder;
+
+// called on the thread that ran the search (a pool thread for async queries), after every traversal
+// including cache hits and cancelled ones, so it should be quick and must not throw
+@FunctionalInterface
+public interface SearchListener {
+    void searchCompleted(SearchStatistics statistics);
+}
@@ -0,0 +1,129 @@
+package pathfinder;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static pathfinder.Pathfinder.*;
+import static pathfinder.SearchStatistics.StopReason;
+
+// per-query bookkeeping shared by every search loop: checks the options' limits and cancellation before each
+// expansion, remembers which limit fired, and collects the statistics reported once the search is over
+final class SearchMonitor {
+    private final SearchOptions options;
+    private final BooleanSupplier cancelled;
+    private final long startNanos;
+    private final long deadline;
+    private final SearchEvent event;
+    private final boolean budgeted; // the node and memory limits are a budget to search within, not a point to stop at
+    private StopReason limit;
+    private StopReason budgetLimit;
+    private int expanded;
+    private int peakOpenSize;
+    private int closedSize;
+    private long edgesRelaxed;
+    private long bytes;
+    private double bound = Double.NaN;
+
+    // the clock starts when the search does
+    SearchMonitor(SearchOptions options, BooleanSupplier cancelled) {
+        this.options = options;
+        this.cancelled = cancelled;
+        this.startNanos = System.nanoTime();
+        this.deadline = startNanos + options.msLimit() * 1_000_000;
+        this.budgeted = options.strategy() == PathStrategy.IterativeDeepening || options.strategy() == PathStrategy.MemoryBounded;
+        this.event = new SearchEvent();
+        event.begin();
+    }
+
+    // false once a limit fires, the search then returns its closest solution.
+    // bytes is what the search's own structures take up so far, see MemoryLayout.
+    // a cancelled query throws instead, since nobody is waiting for its partial result
+    boolean test(int openSize, int closedSize, long bytes) {
+        if (cancelled.getAsBoolean())
+            throw new CancellationException("Path search was cancelled.");
+
+        this.expanded++;
+        this.peakOpenSize = Math.max(peakOpenSize, openSize);
+        this.closedSize = closedSize;
+        this.bytes = bytes;
+
+        if (options.msLimit() != 0 && System.nanoTime() - deadline >= 0) limit = StopReason.TimeLimit;
+        else if (!budgeted && options.visitLimit() != 0 && closedSize >= options.visitLimit()) limit = StopReason.NodeLimit;
+        else if (!budgeted && options.byteLimit() != 0 && bytes >= options.byteLimit()) limit = StopReason.MemoryLimit;
+
+        return limit == null;
+    }
+
+    // how many nodes a memory-bounded strategy may hold at once at nodeBytes each, unbounded without either limit
+    int budget(long nodeBytes) {
+        var nodes = options.visitLimit() != 0 ? options.visitLimit() : Long.MAX_VALUE;
+        budgetLimit = StopReason.NodeLimit;
+
+        if (options.byteLimit() != 0 && options.byteLimit() / nodeBytes < nodes) {
+            nodes = options.byteLimit() / nodeBytes;
+            budgetLimit = StopReason.MemoryLimit;
+        }
+
+        return (int) Math.min(nodes, Integer.MAX_VALUE);
+    }
+
+    // the goal couldn't be reached within the budget, reported as whichever limit set it
+    void budgetExhausted() {
+        limit = budgetLimit;
+    }
+
+    // what a search that can prove a bound on its path's cost proved, see SearchStatistics.suboptimality
+    void bound(double suboptimality) {
+        bound = suboptimality;
+    }
+
+    // the bound a search proved, or else what follows from the strategy: exact once an optimal one got to the goal.
+    // Anytime paths are only cached once proven optimal
+    double suboptimality(StopReason stopReason) {
+        if (!Double.isNaN(bound)) return bound;
+
+        var strategy = options.strategy();
+        var optimal = strategy == PathStrategy.Optimal || strategy == PathStrategy.Uniform || strategy == PathStrategy.JumpPoint
+                || strategy == PathStrategy.IterativeDeepening || strategy == PathStrategy.MemoryBounded;
+        var cached = stopReason == StopReason.Cached;
+        return optimal && (stopReason == StopReason.Goal || cached) || strategy == PathStrategy.Anytime && cached
+                ? 1
+                : Double.POSITIVE_INFINITY;
+    }
+
+    void relax() {
+        edgesRelaxed++;
+    }
+
+    // nodes are only looked up when someone is listening, CompactGraph.node can allocate one
+    void report(Supplier<Node> start, Supplier<Node> goal, StopReason reason) {
+        var stopReason = limit != null ? limit : reason;
+        var listener = options.listener();
+
+        if (listener == null && !event.shouldCommit())
+            return;
+
+        var statistics = new SearchStatistics(start.get(), goal.get(), options.strategy(), stopReason,
+                expanded, peakOpenSize, closedSize, edgesRelaxed, bytes, System.nanoTime() - startNanos,
+                suboptimality(stopReason));
+
+        if (event.shouldCommit()) {
+            event.end();
+            event.start = statistics.start().toString();
+            event.goal = statistics.goal().toString();
+            event.strategy = String.valueOf(statistics.strategy());
+            event.stopReason = stopReason.name();
+            event.expanded = expanded;
+            event.peakOpenSize = peakOpenSize;
+            event.closedSize = closedSize;
+            event.edgesRelaxed = edgesRelaxed;
+            event.bytes = bytes;
+            event.suboptimality = statistics.suboptimality();
+            event.commit();
+        }
+
+        if (listener != null)
+            listener.searchCompleted(statistics);
+    }
+}
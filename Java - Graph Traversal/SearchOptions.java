@@ -0,0 +1,60 @@
+package pathfinder;
+
+import static pathfinder.Pathfinder.*;
+
+// immutable settings for a single query, so threads sharing one Pathfinder never see each other's strategy
+// a limit of 0 means no limit, and several limits can be combined (the search stops at whichever fires first)
+public record SearchOptions(
+        PathStrategy strategy,
+        Heuristic heuristic,
+        boolean bidirectional,
+        long msLimit,
+        int visitLimit,
+        long byteLimit,
+        SearchListener listener
+) {
+    public SearchOptions {
+        if (heuristic == null)
+            heuristic = Heuristic.MANHATTAN;
+
+        if (msLimit < 0 || visitLimit < 0 || byteLimit < 0)
+            throw new PathfindingException("Search limits cannot be negative.");
+    }
+
+    public static SearchOptions of(PathStrategy strategy) {
+        return new SearchOptions(strategy, Heuristic.MANHATTAN, false, 0, 0, 0, null);
+    }
+
+    public SearchOptions withStrategy(PathStrategy strategy) {
+        return new SearchOptions(strategy, heuristic, bidirectional, msLimit, visitLimit, byteLimit, listener);
+    }
+
+    // null restores the default Manhattan distance
+    public SearchOptions withHeuristic(Heuristic heuristic) {
+        return new SearchOptions(strategy, heuristic, bidirectional, msLimit, visitLimit, byteLimit, listener);
+    }
+
+    // only affects the Optimal and Uniform strategies on Node graphs. the backward half starts from the goal node
+    // itself, so unlike every other search it never ends on another node that shares the goal's coordinates, even a
+    // nearer one. leave it off where nodes share coordinates and any of them will do
+    public SearchOptions withBidirectional(boolean bidirectional) {
+        return new SearchOptions(strategy, heuristic, bidirectional, msLimit, visitLimit, byteLimit, listener);
+    }
+
+    public SearchOptions withTimeLimit(long msLimit) {
+        return new SearchOptions(strategy, heuristic, bidirectional, msLimit, visitLimit, byteLimit, listener);
+    }
+
+    public SearchOptions withNodeLimit(int visitLimit) {
+        return new SearchOptions(strategy, heuristic, bidirectional, msLimit, visitLimit, byteLimit, listener);
+    }
+
+    public SearchOptions withMemoryLimit(long byteLimit) {
+        return new SearchOptions(strategy, heuristic, bidirectional, msLimit, visitLimit, byteLimit, listener);
+    }
+
+    // null stops reporting, see SearchListener
+    public SearchOptions withListener(SearchListener listener) {
+        return new SearchOptions(strategy, heuristic, bidirectional, msLimit, visitLimit, byteLimit, listener);
+    }
+}
@@ -0,0 +1,43 @@
+package pathfinder;
+
+// the graph as searches written once for both graph kinds see it: S is whatever identifies a node,
+// Nodes themselves or GraphView ids, and the goal and heuristic are already bound in
+abstract class SearchSpace<S> {
+    abstract int degree(S state);
+
+    abstract S neighbour(S state, int index);
+
+    abstract int weight(S state, int index);
+
+    abstract boolean isGoal(S state);
+
+    abstract int estimate(S state);
+
+    abstract Node node(S state);
+
+    abstract long stateBytes(); // what holding on to one more state costs, beyond the search's own structures
+
+    static SearchSpace<Node> over(Node goal, SearchOptions options) {
+        return new SearchSpace<>() {
+            int degree(Node state) { return state.getAdjacent().size(); }
+            Node neighbour(Node state, int index) { return state.getAdjacent().get(index).node(); }
+            int weight(Node state, int index) { return state.getAdjacent().get(index).weight(); }
+            boolean isGoal(Node state) { return state.matches(goal); }
+            int estimate(Node state) { return options.heuristic().estimate(state, goal); }
+            Node node(Node state) { return state; }
+            long stateBytes() { return 0; }
+        };
+    }
+
+    static SearchSpace<Integer> over(GraphView graph, int goal, SearchOptions options) {
+        return new SearchSpace<>() {
+            int degree(Integer state) { return graph.degree(state); }
+            Integer neighbour(Integer state, int index) { return graph.target(state, index); }
+            int weight(Integer state, int index) { return graph.weight(state, index); }
+            boolean isGoal(Integer state) { return graph.matches(state, goal); }
+            int estimate(Integer state) { return graph.estimate(options.heuristic(), state, goal); }
+            Node node(Integer state) { return graph.node(state); }
+            long stateBytes() { return MemoryLayout.BOXED_INT; }
+        };
+    }
+}
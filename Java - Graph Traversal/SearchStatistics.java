@@ -0,0 +1,31 @@
+package pathfinder;
+
+import static pathfinder.Pathfinder.*;
+
+// what a single traversal did, handed to the query's SearchListener once it is over.
+// expanded counts nodes taken off the open collection, relaxed counts edges followed to a node that wasn't closed yet.
+// suboptimality is how many times the optimal cost the path's cost can be at most: 1 for optimal strategies that
+// got to the goal, whatever Anytime proved for its best path so far, infinite when nothing is known
+public record SearchStatistics(
+        Node start,
+        Node goal,
+        PathStrategy strategy,
+        StopReason stopReason,
+        int expanded,
+        int peakOpenSize,
+        int closedSize,
+        long edgesRelaxed,
+        long bytes,
+        long nanos,
+        double suboptimality
+) {
+    public enum StopReason {
+        Goal, Exhausted, TimeLimit, NodeLimit, MemoryLimit, Cancelled, Cached
+    }
+
+    // a partial path came back because a limit fired, not because the goal is unreachable.
+    // Anytime's may be complete but not yet optimal, see suboptimality
+    public boolean limited() {
+        return stopReason == StopReason.TimeLimit || stopReason == StopReason.NodeLimit || stopReason == StopReason.MemoryLimit;
+    }
+}
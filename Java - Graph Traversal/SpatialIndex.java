@@ -0,0 +1,232 @@
+package pathfinder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+// immutable 2-d tree over a graph's node coordinates, for turning raw positions into nodes in O(log n).
+// the tree is implicit: each range's median (by x or y, alternating with depth) sits in the middle of its slice,
+// so there are no tree nodes, just three int arrays. ids are positions in the Node collection, or CompactGraph ids.
+// squared distances between ints don't fit a long at the extremes, so they're doubles, exact below 2^26 apart
+public class SpatialIndex {
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] ids;
+    private final Node[] nodes;       // null for an index over a CompactGraph
+    private final CompactGraph graph; // null for an index over Nodes
+
+    private SpatialIndex(int[] xs, int[] ys, Node[] nodes, CompactGraph graph) {
+        this.ids = new int[xs.length];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = i;
+
+        build(ids, xs, ys, 0, ids.length, 0);
+
+        this.xs = new int[ids.length];
+        this.ys = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            this.xs[i] = xs[ids[i]];
+            this.ys[i] = ys[ids[i]];
+        }
+
+        this.nodes = nodes;
+        this.graph = graph;
+    }
+
+    public static SpatialIndex of(Collection<Node> nodes) {
+        var array = nodes.toArray(new Node[0]);
+        var xs = new int[array.length];
+        var ys = new int[array.length];
+
+        for (int i = 0; i < array.length; i++) {
+            xs[i] = array[i].getX();
+            ys[i] = array[i].getY();
+        }
+
+        return new SpatialIndex(xs, ys, array, null);
+    }
+
+    // every node reachable from root, in breadth-first order
+    public static SpatialIndex from(Node root) {
+        var seen = new HashSet<Node>();
+        var nodes = new ArrayList<Node>();
+        var queue = new ArrayDeque<Node>();
+
+        seen.add(root);
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            var node = queue.poll();
+            nodes.add(node);
+
+            for (var adjacent : node.getAdjacent())
+                if (seen.add(adjacent.node()))
+                    queue.add(adjacent.node());
+        }
+
+        return of(nodes);
+    }
+
+    // no Node objects involved, handy for mapped graphs
+    public static SpatialIndex of(CompactGraph graph) {
+        var xs = new int[graph.size()];
+        var ys = new int[graph.size()];
+
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = graph.x(i);
+            ys[i] = graph.y(i);
+        }
+
+        return new SpatialIndex(xs, ys, null, graph);
+    }
+
+    // the graph the ids refer to, null when the index was built over Nodes
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Node node(int id) {
+        return nodes != null ? nodes[id] : graph.node(id);
+    }
+
+    // nearest by straight-line distance, ties go to whichever the tree finds first. null when empty
+    public Node nearest(int x, int y) {
+        var id = nearestId(x, y);
+        return id < 0 ? null : node(id);
+    }
+
+    public int nearestId(int x, int y) {
+        var best = new double[]{-1, Double.POSITIVE_INFINITY}; // slot, squared distance
+        nearest(x, y, 0, ids.length, 0, best);
+        return best[0] < 0 ? -1 : ids[(int) best[0]];
+    }
+
+    // a node sitting exactly on (x, y), null when there's none
+    public Node at(int x, int y) {
+        var id = idAt(x, y);
+        return id < 0 ? null : node(id);
+    }
+
+    public int idAt(int x, int y) {
+        return find(x, y, 0, ids.length, 0);
+    }
+
+    // every node within radius (inclusive) of (x, y), in no particular order
+    public List<Node> within(int x, int y, int radius) {
+        var result = new ArrayList<Node>();
+        for (var id : idsWithin(x, y, radius))
+            result.add(node(id));
+
+        return result;
+    }
+
+    public int[] idsWithin(int x, int y, int radius) {
+        if (radius < 0)
+            throw new Pathfinder.PathfindingException("Radius cannot be negative.");
+
+        var found = new int[][]{new int[16]}; // grown in place by within()
+        var count = within(x, y, radius, 0, ids.length, 0, found, 0);
+        return Arrays.copyOf(found[0], count);
+    }
+
+    private void nearest(int x, int y, int lo, int hi, int depth, double[] best) {
+        if (lo >= hi) return;
+
+        var mid = (lo + hi) >>> 1;
+        var dx = (double) xs[mid] - x;
+        var dy = (double) ys[mid] - y;
+        var distance = dx * dx + dy * dy;
+        if (distance < best[1]) {
+            best[0] = mid;
+            best[1] = distance;
+        }
+
+        var offset = depth % 2 == 0 ? -dx : -dy; // how far (x, y) lies past the split
+        var near = offset < 0;
+
+        // the side (x, y) is on first, the other only if the splitting line is closer than the best so far
+        if (near) nearest(x, y, lo, mid, depth + 1, best);
+        else nearest(x, y, mid + 1, hi, depth + 1, best);
+
+        if (offset * offset < best[1]) {
+            if (near) nearest(x, y, mid + 1, hi, depth + 1, best);
+            else nearest(x, y, lo, mid, depth + 1, best);
+        }
+    }
+
+    private int within(int x, int y, int radius, int lo, int hi, int depth, int[][] found, int count) {
+        if (lo >= hi) return count;
+
+        var mid = (lo + hi) >>> 1;
+        var dx = (double) xs[mid] - x;
+        var dy = (double) ys[mid] - y;
+
+        if (dx * dx + dy * dy <= (double) radius * radius) {
+            if (count == found[0].length)
+                found[0] = Arrays.copyOf(found[0], count * 2);
+
+            found[0][count++] = ids[mid];
+        }
+
+        var offset = depth % 2 == 0 ? -dx : -dy;
+        if (offset <= radius) count = within(x, y, radius, lo, mid, depth + 1, found, count);
+        if (offset >= -radius) count = within(x, y, radius, mid + 1, hi, depth + 1, found, count);
+        return count;
+    }
+
+    // equal keys can end up on either side of a split, so a tie searches both
+    private int find(int x, int y, int lo, int hi, int depth) {
+        if (lo >= hi) return -1;
+
+        var mid = (lo + hi) >>> 1;
+        if (xs[mid] == x && ys[mid] == y) return ids[mid];
+
+        var key = depth % 2 == 0 ? x : y;
+        var split = depth % 2 == 0 ? xs[mid] : ys[mid];
+
+        var id = key <= split ? find(x, y, lo, mid, depth + 1) : -1;
+        return id < 0 && key >= split ? find(x, y, mid + 1, hi, depth + 1) : id;
+    }
+
+    // quickselect each slice around its median on the slice's axis, then the two halves on the other axis
+    private static void build(int[] ids, int[] xs, int[] ys, int lo, int hi, int depth) {
+        if (hi - lo <= 1) return;
+
+        var mid = (lo + hi) >>> 1;
+        var keys = depth % 2 == 0 ? xs : ys;
+        select(ids, keys, lo, hi - 1, mid);
+
+        build(ids, xs, ys, lo, mid, depth + 1);
+        build(ids, xs, ys, mid + 1, hi, depth + 1);
+    }
+
+    // Hoare partitioning until position k holds the value it would hold if the slice were sorted
+    private static void select(int[] ids, int[] keys, int lo, int hi, int k) {
+        while (lo < hi) {
+            var pivot = keys[ids[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+
+            while (i <= j) {
+                while (keys[ids[i]] < pivot) i++;
+                while (keys[ids[j]] > pivot) j--;
+
+                if (i <= j) {
+                    var swap = ids[i];
+                    ids[i++] = ids[j];
+                    ids[j--] = swap;
+                }
+            }
+
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+}
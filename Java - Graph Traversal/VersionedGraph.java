@@ -0,0 +1,301 @@
+package pathfinder;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static pathfinder.Pathfinder.*;
+
+// a graph that can be edited while it's being searched. every edit publishes a new immutable Snapshot and a search
+// pins whichever one was current when it started, so it never sees half an edit and writers never wait for it.
+// snapshots share whatever an edit didn't touch: nodes are kept in pages of PAGE_SIZE and an edit copies only the
+// pages it changes, plus the page table. writers take turns, readers never lock
+public final class VersionedGraph {
+    static final int PAGE_BITS = 10;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int[] NO_EDGES = new int[0];
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(0, 0, 0, new Page[0]));
+    private final Object writeLock = new Object();
+
+    // coordinates per node, and edges per node as target, weight pairs. pages are never changed once published
+    private record Page(int[] xs, int[] ys, int[][] edges) {
+        Page() {
+            this(new int[PAGE_SIZE], new int[PAGE_SIZE], new int[PAGE_SIZE][]);
+        }
+
+        Page copy() {
+            return new Page(xs.clone(), ys.clone(), edges.clone());
+        }
+    }
+
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    // the edits become one new version, searches see all of them or none. nothing is published when they throw,
+    // or when they change nothing
+    public Snapshot edit(Consumer<Editor> edits) {
+        synchronized (writeLock) {
+            var editor = new Editor(current.get());
+            try {
+                edits.accept(editor);
+            } finally {
+                editor.closed = true;
+            }
+
+            if (!editor.changed) return editor.base;
+
+            var snapshot = editor.snapshot();
+            current.set(snapshot);
+            return snapshot;
+        }
+    }
+
+    public int addNode(int x, int y) {
+        var id = new int[1];
+        edit(editor -> id[0] = editor.addNode(x, y));
+        return id[0];
+    }
+
+    public void addEdge(int a, int b, int w) {
+        edit(editor -> editor.addEdge(a, b, w));
+    }
+
+    public boolean updateEdge(int a, int b, int w) {
+        var updated = new boolean[1];
+        edit(editor -> updated[0] = editor.updateEdge(a, b, w));
+        return updated[0];
+    }
+
+    public boolean removeEdge(int a, int b) {
+        var removed = new boolean[1];
+        edit(editor -> removed[0] = editor.removeEdge(a, b));
+        return removed[0];
+    }
+
+    // one version of the graph, safe to read from any number of threads. node ids never change between versions
+    public static final class Snapshot {
+        private final long version;
+        private final int size;
+        private final int edgeCount;
+        private final Page[] pages;
+        private volatile CompactGraph graph;
+
+        private Snapshot(long version, int size, int edgeCount, Page[] pages) {
+            this.version = version;
+            this.size = size;
+            this.edgeCount = edgeCount;
+            this.pages = pages;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // counted per direction, like CompactGraph.edgeCount
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        public int x(int node) {
+            return pages[Objects.checkIndex(node, size) >>> PAGE_BITS].xs()[node & PAGE_SIZE - 1];
+        }
+
+        public int y(int node) {
+            return pages[Objects.checkIndex(node, size) >>> PAGE_BITS].ys()[node & PAGE_SIZE - 1];
+        }
+
+        public int degree(int node) {
+            return edges(node).length / 2;
+        }
+
+        public int target(int node, int index) {
+            return edges(node)[2 * index];
+        }
+
+        public int weight(int node, int index) {
+            return edges(node)[2 * index + 1];
+        }
+
+        // the last page has slots past size, which hold nothing yet
+        private int[] edges(int node) {
+            return pages[Objects.checkIndex(node, size) >>> PAGE_BITS].edges()[node & PAGE_SIZE - 1];
+        }
+
+        // a CompactGraph copy of this version for whatever needs one, e.g. to save it or build a ContractionHierarchy.
+        // searches don't, they read the pages directly. built on first use, O(nodes + edges), and then shared
+        public CompactGraph graph() {
+            var graph = this.graph;
+            if (graph != null) return graph;
+
+            synchronized (this) {
+                if (this.graph == null)
+                    this.graph = toCompactGraph();
+
+                return this.graph;
+            }
+        }
+
+        // graph() if it was asked for already, null otherwise. never builds it
+        CompactGraph builtGraph() {
+            return graph;
+        }
+
+        private CompactGraph toCompactGraph() {
+            var offsets = new int[size + 1];
+            var targets = new int[edgeCount];
+            var weights = new int[edgeCount];
+            var xs = new int[size];
+            var ys = new int[size];
+
+            for (int node = 0; node < size; node++) {
+                var edges = edges(node);
+                var offset = offsets[node];
+
+                for (int i = 0; i < edges.length; i += 2) {
+                    targets[offset] = edges[i];
+                    weights[offset++] = edges[i + 1];
+                }
+
+                offsets[node + 1] = offset;
+                xs[node] = x(node);
+                ys[node] = y(node);
+            }
+
+            return new CompactGraph(offsets, targets, weights, xs, ys, null);
+        }
+    }
+
+    // the edits of one edit call. pages it already copied are its own until it's done and are changed in place,
+    // so a batch of edits copies each page at most once
+    public static final class Editor {
+        private final Snapshot base;
+        private Page[] pages;
+        private int size;
+        private int edgeCount;
+        private boolean changed;
+        private boolean closed;
+
+        private Editor(Snapshot base) {
+            this.base = base;
+            this.pages = base.pages.clone();
+            this.size = base.size;
+            this.edgeCount = base.edgeCount;
+        }
+
+        public int addNode(int x, int y) {
+            checkOpen();
+            if (size == pages.length * PAGE_SIZE) {
+                pages = Arrays.copyOf(pages, pages.length + 1);
+                pages[pages.length - 1] = new Page();
+            }
+
+            var page = writable(size);
+            var slot = size & PAGE_SIZE - 1;
+            page.xs()[slot] = x;
+            page.ys()[slot] = y;
+            page.edges()[slot] = NO_EDGES;
+            return size++;
+        }
+
+        // symmetric, like Node.addAdjacent
+        public Editor addEdge(int a, int b, int w) {
+            checkEdge(a, b);
+            addArc(a, b, w);
+            addArc(b, a, w);
+            return this;
+        }
+
+        // changes the weight of every edge between a and b, false (and no change) when they aren't adjacent
+        public boolean updateEdge(int a, int b, int w) {
+            checkEdge(a, b);
+            if (!replaceArcs(a, b, w, false)) return false;
+
+            replaceArcs(b, a, w, false);
+            return true;
+        }
+
+        // false when the two weren't adjacent to begin with
+        public boolean removeEdge(int a, int b) {
+            checkEdge(a, b);
+            if (!replaceArcs(a, b, 0, true)) return false;
+
+            replaceArcs(b, a, 0, true);
+            return true;
+        }
+
+        private void addArc(int a, int b, int w) {
+            var edges = edges(a);
+            var grown = Arrays.copyOf(edges, edges.length + 2);
+            grown[edges.length] = b;
+            grown[edges.length + 1] = w;
+
+            writable(a).edges()[a & PAGE_SIZE - 1] = grown;
+            edgeCount++;
+        }
+
+        // node's edge array is shared with older snapshots, so it's replaced rather than changed
+        private boolean replaceArcs(int node, int target, int w, boolean remove) {
+            var edges = edges(node);
+            var result = new int[edges.length];
+            var length = 0;
+
+            for (int i = 0; i < edges.length; i += 2) {
+                if (edges[i] == target && remove) continue;
+
+                result[length++] = edges[i];
+                result[length++] = edges[i] == target ? w : edges[i + 1];
+            }
+
+            var found = remove ? length < edges.length : indexOf(edges, target) >= 0;
+            if (!found) return false;
+
+            writable(node).edges()[node & PAGE_SIZE - 1] = Arrays.copyOf(result, length);
+            edgeCount -= (edges.length - length) / 2;
+            return true;
+        }
+
+        private static int indexOf(int[] edges, int target) {
+            for (int i = 0; i < edges.length; i += 2)
+                if (edges[i] == target)
+                    return i;
+
+            return -1;
+        }
+
+        private int[] edges(int node) {
+            return pages[node >>> PAGE_BITS].edges()[node & PAGE_SIZE - 1];
+        }
+
+        // pages past the base snapshot's, or no longer the same object as its, were copied by this editor
+        private Page writable(int node) {
+            var index = node >>> PAGE_BITS;
+            if (index < base.pages.length && pages[index] == base.pages[index])
+                pages[index] = pages[index].copy();
+
+            changed = true; // whoever asks for a writable page is about to change it
+            return pages[index];
+        }
+
+        private void checkEdge(int a, int b) {
+            checkOpen();
+            if (a < 0 || a >= size || b < 0 || b >= size)
+                throw new PathfindingException(String.format("Edge (%d, %d) refers to an unknown node.", a, b));
+        }
+
+        private void checkOpen() {
+            if (closed)
+                throw new PathfindingException("Edits can only be made inside VersionedGraph.edit().");
+        }
+
+        private Snapshot snapshot() {
+            return new Snapshot(base.version + 1, size, edgeCount, pages);
+        }
+    }
+}
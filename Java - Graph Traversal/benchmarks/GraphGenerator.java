@@ -0,0 +1,105 @@
+package pathfinder.benchmarks;
+
+import pathfinder.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// seeded graph shapes for the benchmarks, so every run (and every fork) searches exactly the same graph.
+// weights never go below the Manhattan distance an edge spans, which keeps the default heuristic admissible
+public class GraphGenerator {
+
+    public enum Shape {
+        Random, Grid, OpenGrid, ScaleFree
+    }
+
+    private GraphGenerator() { }
+
+    public static List<Node> generate(Shape shape, int size, long seed) {
+        return switch (shape) {
+            case Random -> random(size, 3, seed);
+            case Grid -> grid((int) Math.ceil(Math.sqrt(size)), 20, seed);
+            // no walls, so JumpPoint prunes the most and its jumps scan the longest
+            case OpenGrid -> grid((int) Math.ceil(Math.sqrt(size)), 0, seed);
+            case ScaleFree -> scaleFree(size, 2, seed);
+        };
+    }
+
+    // random points on a square, a random spanning tree so everything is reachable, plus extra random edges
+    public static List<Node> random(int size, int averageDegree, long seed) {
+        var random = new Random(seed);
+        var nodes = scatter(size, random);
+
+        for (int i = 1; i < size; i++)
+            connect(nodes.get(i), nodes.get(random.nextInt(i)), random);
+
+        for (long i = (long) size * averageDegree / 2 - (size - 1); i > 0; i--)
+            connect(nodes.get(random.nextInt(size)), nodes.get(random.nextInt(size)), random);
+
+        return nodes;
+    }
+
+    // 4-connected unit-cost side x side grid with wallPercent of the cells left unconnected
+    public static List<Node> grid(int side, int wallPercent, long seed) {
+        var random = new Random(seed);
+        var nodes = new ArrayList<Node>(side * side);
+        var walls = new boolean[side * side];
+
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                nodes.add(new Node(x, y));
+                walls[x * side + y] = random.nextInt(100) < wallPercent;
+            }
+        }
+
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                var cell = x * side + y;
+                if (walls[cell]) continue;
+
+                if (x + 1 < side && !walls[cell + side]) nodes.get(cell).addAdjacent(nodes.get(cell + side), 1);
+                if (y + 1 < side && !walls[cell + 1]) nodes.get(cell).addAdjacent(nodes.get(cell + 1), 1);
+            }
+        }
+
+        return nodes;
+    }
+
+    // Barabasi-Albert preferential attachment: each new node links to edgesPerNode existing ones picked in
+    // proportion to their degree, which grows the few heavily connected hubs road and social graphs have
+    public static List<Node> scaleFree(int size, int edgesPerNode, long seed) {
+        var random = new Random(seed);
+        var nodes = scatter(size, random);
+        var endpoints = new int[2 * size * edgesPerNode]; // every edge end seen so far, so a uniform pick is degree-weighted
+        var endpointCount = 0;
+
+        for (int i = 1; i < size; i++) {
+            for (int edge = 0; edge < Math.min(i, edgesPerNode); edge++) {
+                var target = endpointCount == 0 ? 0 : endpoints[random.nextInt(endpointCount)];
+                connect(nodes.get(i), nodes.get(target), random);
+                endpoints[endpointCount++] = i;
+                endpoints[endpointCount++] = target;
+            }
+        }
+
+        return nodes;
+    }
+
+    private static List<Node> scatter(int size, Random random) {
+        var side = (int) Math.ceil(Math.sqrt(size)) * 4;
+        var nodes = new ArrayList<Node>(size);
+
+        for (int i = 0; i < size; i++)
+            nodes.add(new Node(random.nextInt(side), random.nextInt(side)));
+
+        return nodes;
+    }
+
+    private static void connect(Node a, Node b, Random random) {
+        if (a == b) return;
+
+        var distance = Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY());
+        a.addAdjacent(b, distance + random.nextInt(distance / 4 + 2));
+    }
+}
@@ -0,0 +1,129 @@
+package pathfinder.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pathfinder.CompactGraph;
+import pathfinder.Node;
+import pathfinder.Pathfinder;
+import pathfinder.Pathfinder.PathSegment;
+import pathfinder.Pathfinder.PathStrategy;
+import pathfinder.SearchOptions;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// every strategy over every graph shape and size, through each public way of running a query.
+// Throughput gives queries per second and SampleTime the latency percentiles; BenchmarkMain adds the GC profiler
+// for allocation rates. The full matrix takes hours, narrow it down with e.g. -p size=1000 -p strategy=Optimal
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TraversalBenchmark {
+    private static final long SEED = 42;
+    private static final int QUERIES = 1024; // power of two, see next()
+
+    @Param({"Random", "Grid", "OpenGrid", "ScaleFree"})
+    public GraphGenerator.Shape shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"Depth", "Breadth", "Optimal", "Uniform", "Greedy", "JumpPoint", "IterativeDeepening", "MemoryBounded", "Anytime"})
+    public PathStrategy strategy;
+
+    @Param({"5"})
+    public long msLimit;
+
+    @Param({"1000"})
+    public int visitLimit;
+
+    @Param({"1048576"})
+    public long byteLimit;
+
+    private Pathfinder pathfinder;
+    private SearchOptions options;
+    private CompactGraph graph;
+    private Node[] starts;
+    private Node[] goals;
+    private int[] compactStarts;
+    private int[] compactGoals;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int query;
+
+        int next() {
+            return query++ & (QUERIES - 1);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Node> nodes = GraphGenerator.generate(shape, size, SEED);
+        var random = new Random(SEED);
+
+        pathfinder = Pathfinder.getInstance();
+        options = SearchOptions.of(strategy);
+        graph = CompactGraph.of(nodes);
+        starts = new Node[QUERIES];
+        goals = new Node[QUERIES];
+        compactStarts = new int[QUERIES];
+        compactGoals = new int[QUERIES];
+
+        for (int i = 0; i < QUERIES; i++) {
+            do {
+                starts[i] = nodes.get(random.nextInt(nodes.size()));
+                goals[i] = nodes.get(random.nextInt(nodes.size()));
+            } while (!reachable(starts[i], goals[i]));
+
+            compactStarts[i] = graph.indexOf(starts[i]);
+            compactGoals[i] = graph.indexOf(goals[i]);
+        }
+    }
+
+    // queries stay within one component. a wall cell or another component can't be reached, and the exhaustive
+    // strategies (IterativeDeepening most of all) only find that out by searching start's whole component
+    private static boolean reachable(Node start, Node goal) {
+        return !goal.getAdjacent().isEmpty() && start.mayReach(goal);
+    }
+
+    @Benchmark
+    public PathSegment traverse(Cursor cursor) {
+        var i = cursor.next();
+        return pathfinder.traverse(starts[i], goals[i], options);
+    }
+
+    @Benchmark
+    public PathSegment traverseCompact(Cursor cursor) {
+        var i = cursor.next();
+        return pathfinder.traverse(graph, compactStarts[i], compactGoals[i], options);
+    }
+
+    @Benchmark
+    public PathSegment traverseTimeLimit(Cursor cursor) {
+        var i = cursor.next();
+        return pathfinder.traverse(starts[i], goals[i], options.withTimeLimit(msLimit));
+    }
+
+    @Benchmark
+    public PathSegment traverseNodeLimit(Cursor cursor) {
+        var i = cursor.next();
+        return pathfinder.traverse(starts[i], goals[i], options.withNodeLimit(visitLimit));
+    }
+
+    @Benchmark
+    public PathSegment traverseMemoryLimit(Cursor cursor) {
+        var i = cursor.next();
+        return pathfinder.traverse(starts[i], goals[i], options.withMemoryLimit(byteLimit));
+    }
+
+    // includes the hand-off to the executor and back, which is what an async caller actually waits for
+    @Benchmark
+    public PathSegment asyncTraverse(Cursor cursor) {
+        var i = cursor.next();
+        return pathfinder.asyncTraverse(starts[i], goals[i], options).join();
+    }
+}